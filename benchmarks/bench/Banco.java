@@ -0,0 +1,65 @@
+package bench;
+
+/**
+ * bench.Banco:
+ * Lo común de los benchmarks de benchmarks/ (cada uno va en el paquete de lo que mide,
+ * para poder usar lo que no es público).
+ * - cantidades: las de la línea de comandos, o las de por defecto.
+ * - msPorVuelta: calentar (JIT) y luego la media de unas cuantas vueltas.
+ * - Tabla: columnas alineadas a la derecha; los double salen con dos decimales.
+ *
+ * No es JMH: vale para comparar antes/después en la misma máquina, no para números absolutos.
+ */
+public final class Banco {
+
+    private Banco() {}
+
+    /** Los números de args, o porDefecto si no hay ninguno. */
+    public static int[] cantidades(String[] args, int... porDefecto) {
+        if (args.length == 0) return porDefecto;
+
+        int[] c = new int[args.length];
+        for (int k = 0; k < args.length; k++) c[k] = Integer.parseInt(args[k]);
+        return c;
+    }
+
+    /** calentar vueltas sin medir y luego la media, en ms, de repeticiones vueltas. */
+    public static double msPorVuelta(int calentar, int repeticiones, Runnable vuelta) {
+        for (int k = 0; k < calentar; k++) vuelta.run();
+
+        long t0 = System.nanoTime();
+        for (int k = 0; k < repeticiones; k++) vuelta.run();
+        return (System.nanoTime() - t0) / 1e6 / repeticiones;
+    }
+
+    /** Tabla de resultados por consola: la cabecera al crearla y luego una fila por medida. */
+    public static final class Tabla {
+
+        private final int[] anchos;
+
+        public Tabla(String... columnas) {
+            this(10, columnas);
+        }
+
+        /** anchoPrimera: para cuando la primera columna lleva textos largos (p.ej. nombres de recurso). */
+        public Tabla(int anchoPrimera, String... columnas) {
+            anchos = new int[columnas.length];
+            StringBuilder sb = new StringBuilder();
+            for (int k = 0; k < columnas.length; k++) {
+                anchos[k] = Math.max(k == 0 ? anchoPrimera : 10, columnas[k].length() + 3);
+                sb.append(String.format("%" + anchos[k] + "s", columnas[k]));
+            }
+            System.out.println(sb);
+        }
+
+        public void fila(Object... valores) {
+            StringBuilder sb = new StringBuilder();
+            for (int k = 0; k < valores.length; k++) {
+                Object v = valores[k];
+                String texto = (v instanceof Double || v instanceof Float) ? String.format("%.2f", v) : String.valueOf(v);
+                sb.append(String.format("%" + anchos[k] + "s", texto));
+            }
+            System.out.println(sb);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package model;
+
+import bench.Banco;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+
+/**
+ * model.ColisionesBench:
+ * Mide lo que cuesta Colisiones por tick con muchas bolas.
+ * - Bolas de radio 16 repartidas al azar, unos 48x48 px de mundo por bola (la densidad no cambia con n).
+ * - Las que salen por la derecha vuelven a entrar por la izquierda (como si el anillo fuera de un peer),
+ *   así n no cambia; eso va fuera del tiempo medido.
+ * - CALENTAR ticks para que entre el JIT y se deshagan los solapes del reparto inicial; luego se miden TICKS.
+ * - Saca pares probados y choques por tick (y cuántos pares serían probándolos todos) y el tiempo
+ *   de BallStore.update y de Colisiones.resolver por separado.
+ *
+ * Uso:
+ *   java model.ColisionesBench            -> 1000, 10000 y 100000 bolas
+ *   java model.ColisionesBench n...       -> esas cantidades
+ */
+public class ColisionesBench {
+
+    private static final int CALENTAR = 100;
+    private static final int TICKS = 100;
+    private static final float DT = 1 / 60f;
+
+    public static void main(String[] args) {
+        Banco.Tabla tabla = new Banco.Tabla("n", "pares/tick", "todos los pares", "choques/tick",
+                "update ms/tick", "resolver ms/tick");
+        for (int n : Banco.cantidades(args, 1_000, 10_000, 100_000)) medir(n, tabla);
+    }
+
+    private static void medir(int n, Banco.Tabla tabla) {
+        float lado = (float) Math.sqrt(n) * 48f;
+        Rectangle2D.Float mundo = new Rectangle2D.Float(0, 0, lado, lado);
+
+        Random rnd = new Random(1);
+        BallStore s = new BallStore(n);
+        for (int i = 0; i < n; i++) {
+            s.add(rnd.nextFloat() * lado, rnd.nextFloat() * lado, 16,
+                    rnd.nextFloat() * 200 - 100, rnd.nextFloat() * 200 - 100, 0xFFFFFF);
+        }
+
+        Colisiones colisiones = new Colisiones();
+        for (int k = 0; k < CALENTAR; k++) {
+            s.update(DT, mundo);
+            reentrar(s);
+            colisiones.resolver(s, mundo);
+        }
+
+        // aquí no vale Banco.msPorVuelta: se miden dos partes del mismo tick por separado
+        long pares = 0, choques = 0, nsUpdate = 0, nsResolver = 0;
+        for (int k = 0; k < TICKS; k++) {
+            long t0 = System.nanoTime();
+            s.update(DT, mundo);
+            long t1 = System.nanoTime();
+            reentrar(s);
+            long t2 = System.nanoTime();
+            colisiones.resolver(s, mundo);
+            long t3 = System.nanoTime();
+
+            nsUpdate += t1 - t0;
+            nsResolver += t3 - t2;
+            pares += colisiones.getParesProbados();
+            choques += colisiones.getChoques();
+        }
+
+        tabla.fila(n, pares / TICKS, (long) n * (n - 1) / 2, choques / TICKS,
+                nsUpdate / 1e6 / TICKS, nsResolver / 1e6 / TICKS);
+    }
+
+    // las que han salido por la derecha vuelven por la izquierda, con la misma altura y velocidad
+    private static void reentrar(BallStore s) {
+        for (int k = s.getNumSalidas() - 1; k >= 0; k--) { // de atrás hacia delante, como GameController
+            int i = s.getSalida(k);
+            float y = s.getY(i), r = s.getR(i), vx = s.getVx(i), vy = s.getVy(i);
+            int rgb = s.getColor(i);
+            s.remove(i);
+            s.add(r, y, r, vx, vy, rgb);
+        }
+    }
+}
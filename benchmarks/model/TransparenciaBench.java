@@ -0,0 +1,64 @@
+package model;
+
+import bench.Banco;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * model.TransparenciaBench:
+ * Compara SpriteSheetFactory.makeWhiteTransparent con como se hacía antes (getRGB/setRGB pixel a pixel).
+ * - Primero comprueba que las dos dan la misma imagen (cuenta los píxeles distintos: tiene que salir 0).
+ * - Luego CALENTAR vueltas de cada una para el JIT, y la media de REPETICIONES (Banco.msPorVuelta).
+ *
+ * Uso (los recursos se buscan en el classpath o en src/, ver SpriteSheetCache.cargar):
+ *   java model.TransparenciaBench                  -> las hojas del juego
+ *   java model.TransparenciaBench recurso...       -> esos recursos (p.ej. /Resources/pitufo.png)
+ */
+public class TransparenciaBench {
+
+    private static final int CALENTAR = 5;
+    private static final int REPETICIONES = 20;
+
+    public static void main(String[] args) {
+        String[] recursos = (args.length > 0) ? args
+                : new String[]{"/Resources/fuegosheet.jpeg", "/Resources/pitufo.png"};
+
+        Banco.Tabla tabla = new Banco.Tabla(28, "recurso", "tamaño", "píxeles distintos",
+                "getRGB/setRGB ms", "raster ms");
+        for (String recurso : recursos) {
+            BufferedImage img = SpriteSheetCache.cargar(recurso);
+            int umbral = SpriteSheetFactory.UMBRAL_BLANCO;
+
+            long distintos = distintos(pixelAPixel(img, umbral), SpriteSheetFactory.makeWhiteTransparent(img, umbral));
+            double antes = Banco.msPorVuelta(CALENTAR, REPETICIONES, () -> pixelAPixel(img, umbral));
+            double ahora = Banco.msPorVuelta(CALENTAR, REPETICIONES,
+                    () -> SpriteSheetFactory.makeWhiteTransparent(img, umbral));
+
+            tabla.fila(recurso, img.getWidth() + "x" + img.getHeight(), distintos, antes, ahora);
+        }
+    }
+
+    // la versión de antes
+    private static BufferedImage pixelAPixel(BufferedImage img, int umbral) {
+        int w = img.getWidth(), h = img.getHeight();
+        BufferedImage t = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int rgba = img.getRGB(x, y);
+                int r = (rgba >> 16) & 0xff, g = (rgba >> 8) & 0xff, b = rgba & 0xff;
+                t.setRGB(x, y, (r > umbral && g > umbral && b > umbral) ? 0 : rgba);
+            }
+        }
+        return t;
+    }
+
+    private static long distintos(BufferedImage a, BufferedImage b) {
+        long n = 0;
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                if (a.getRGB(x, y) != b.getRGB(x, y)) n++;
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,91 @@
+package view;
+
+import bench.Banco;
+import model.BallStore;
+import model.Instantanea;
+
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * PintadoBench:
+ * Compara pintar las bolas como antes (elipse con antialias + borde, rasterizada en cada frame)
+ * con los sellos del Renderer (drawImage de SellosBola).
+ * - Pinta en un BufferedImage de ANCHO x ALTO (sin pantalla: vale en headless, va por el pipeline software).
+ * - Bolas de radio 16 al azar por todo el panel, con los seis colores de GameController.
+ * - Sin mapa de densidad (si no se pone otro -Dbolas.densidadMapa): se miden las bolas de una en una.
+ *
+ * Uso:
+ *   java -Djava.awt.headless=true view.PintadoBench          -> 1000, 10000 y 50000 bolas
+ *   java -Djava.awt.headless=true view.PintadoBench n...     -> esas cantidades
+ */
+public class PintadoBench {
+
+    private static final int ANCHO = 1280, ALTO = 720;
+    private static final float RADIO = 16f;
+    private static final int[] COLORES = {0xE76FAA, 0xF2A1C7, 0xB57EDC, 0x7FB8E6, 0x8ED1B0, 0xF6C177};
+    private static final int CALENTAR = 3;
+
+    public static void main(String[] args) {
+        // antes de cargar Renderer: con miles de bolas si no pintaría el mapa de densidad
+        if (System.getProperty("bolas.densidadMapa") == null) System.setProperty("bolas.densidadMapa", "0");
+
+        BufferedImage img = new BufferedImage(ANCHO, ALTO, BufferedImage.TYPE_INT_RGB);
+        Renderer renderer = new Renderer(new Hud());
+
+        Banco.Tabla tabla = new Banco.Tabla("n", "elipses ms/frame", "sellos ms/frame");
+        for (int n : Banco.cantidades(args, 1_000, 10_000, 50_000)) {
+            Instantanea s = instantanea(n);
+            int repeticiones = Math.max(5, 60_000 / n);
+
+            double antes = Banco.msPorVuelta(CALENTAR, repeticiones, () -> elipses(img, s));
+            double ahora = Banco.msPorVuelta(CALENTAR, repeticiones, () -> sellos(img, s, renderer));
+            tabla.fila(n, antes, ahora);
+        }
+    }
+
+    private static Instantanea instantanea(int n) {
+        Random rnd = new Random(1);
+        BallStore b = new BallStore(n);
+        for (int i = 0; i < n; i++) {
+            b.add(RADIO + rnd.nextFloat() * (ANCHO - 2 * RADIO), RADIO + rnd.nextFloat() * (ALTO - 2 * RADIO),
+                    RADIO, 10, 10, COLORES[rnd.nextInt(COLORES.length)]);
+        }
+        Instantanea s = new Instantanea();
+        b.copiarEn(s);
+        return s;
+    }
+
+    // como se pintaba antes de los sellos
+    private static void elipses(BufferedImage img, Instantanea s) {
+        Graphics2D g2 = img.createGraphics();
+        try {
+            g2.setColor(Renderer.FONDO);
+            g2.fillRect(0, 0, ANCHO, ALTO);
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            Color borde = new Color(0, 0, 0, 40);
+            for (int i = 0; i < s.size(); i++) {
+                float r = s.getR(i);
+                Ellipse2D.Float c = new Ellipse2D.Float(s.getX(i, 0.5f) - r, s.getY(i, 0.5f) - r, 2 * r, 2 * r);
+                g2.setColor(new Color(s.getColor(i)));
+                g2.fill(c);
+                g2.setColor(borde);
+                g2.draw(c);
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    private static void sellos(BufferedImage img, Instantanea s, Renderer renderer) {
+        Graphics2D g2 = img.createGraphics();
+        try {
+            renderer.preparar(s, 0.5f, ANCHO, ALTO, 0, 0, null);
+            renderer.pintar(g2, s, ANCHO, ALTO, g2.getDeviceConfiguration(), null);
+        } finally {
+            g2.dispose();
+        }
+    }
+}
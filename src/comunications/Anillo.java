@@ -0,0 +1,114 @@
+package comunications;
+
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Anillo:
+ * Lista ordenada de peers (host:puerto). Cada peer manda lo que sale por su derecha
+ * al siguiente peer VIVO del anillo (si el vecino está caído, al siguiente, y así).
+ *
+ * Configuración:
+ * - -Dbolas.anillo=192.168.1.10:5000,192.168.1.11:5000,192.168.1.12:5000
+ * - sin bolas.anillo: modo local, N peers en esta máquina (-Dbolas.peers=N, por defecto 2)
+ *   escuchando en basePort, basePort+1, ...
+ *
+ * Mi posición en el anillo es la primera entrada local cuyo puerto consigo abrir (lo decide SC).
+ */
+public class Anillo {
+
+    public static final class Nodo {
+        public final String host;
+        public final int port;
+
+        Nodo(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        @Override
+        public String toString() { return host + ":" + port; }
+    }
+
+    private final List<Nodo> nodos;
+    private final boolean modoLocal;
+
+    private volatile int indiceLocal = -1;
+    private final CountDownLatch ubicado = new CountDownLatch(1);
+
+    private Anillo(List<Nodo> nodos, boolean modoLocal) {
+        if (nodos.isEmpty()) throw new IllegalArgumentException("Anillo vacío");
+        this.nodos = Collections.unmodifiableList(nodos);
+        this.modoLocal = modoLocal;
+    }
+
+    public static Anillo desdeConfig(int basePort) {
+        String cfg = System.getProperty("bolas.anillo");
+        List<Nodo> nodos = new ArrayList<>();
+
+        if (cfg == null || cfg.isBlank()) {
+            int n = Math.max(1, Integer.getInteger("bolas.peers", 2));
+            for (int i = 0; i < n; i++) nodos.add(new Nodo("localhost", basePort + i));
+            return new Anillo(nodos, true);
+        }
+
+        for (String entrada : cfg.split(",")) {
+            String e = entrada.trim();
+            if (e.isEmpty()) continue;
+
+            int sep = e.lastIndexOf(':');
+            if (sep < 0) nodos.add(new Nodo(e, basePort));
+            else nodos.add(new Nodo(e.substring(0, sep), Integer.parseInt(e.substring(sep + 1))));
+        }
+        return new Anillo(nodos, false);
+    }
+
+    public int size() { return nodos.size(); }
+    public Nodo get(int i) { return nodos.get(i); }
+    public boolean isModoLocal() { return modoLocal; }
+
+    /** True si el host de la entrada i es esta máquina (loopback o una de mis interfaces). */
+    public boolean esLocal(int i) {
+        try {
+            InetAddress addr = InetAddress.getByName(nodos.get(i).host);
+            return addr.isLoopbackAddress() || addr.isAnyLocalAddress()
+                    || NetworkInterface.getByInetAddress(addr) != null;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // ==========================
+    // MI POSICIÓN
+    // ==========================
+    public void setIndiceLocal(int i) {
+        indiceLocal = i;
+        ubicado.countDown();
+    }
+
+    /** Espera a que SC haya abierto su puerto (y por tanto sepa quién soy). */
+    public int getIndiceLocal() {
+        try {
+            ubicado.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return indiceLocal;
+    }
+
+    public Nodo getLocal() { return nodos.get(getIndiceLocal()); }
+
+    /** El nodo a "salto" posiciones a mi derecha (1 = vecino inmediato). */
+    public Nodo sucesor(int salto) {
+        return nodos.get((getIndiceLocal() + salto) % nodos.size());
+    }
+
+    /** Etiqueta para la ventana: A, B, C... */
+    public String etiqueta(int i) {
+        return (i < 26) ? String.valueOf((char) ('A' + i)) : "P" + i;
+    }
+}
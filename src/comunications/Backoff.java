@@ -0,0 +1,35 @@
+package comunications;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Backoff:
+ * Espera entre reintentos que crece x2 en cada fallo (de base a max) con jitter.
+ * - El jitter evita que muchos peers que caen/arrancan a la vez reintenten
+ *   todos en el mismo instante (tormenta de reconexiones).
+ * - reset() cuando el intento sale bien.
+ * No es thread-safe: cada conector usa el suyo desde su propio hilo.
+ */
+public class Backoff {
+
+    private final long base;
+    private final long max;
+    private long actual;
+
+    public Backoff(long base, long max) {
+        this.base = base;
+        this.max = max;
+        this.actual = base;
+    }
+
+    /** ms a esperar antes del siguiente intento: entre actual/2 y actual. */
+    public long siguiente() {
+        long espera = actual / 2 + ThreadLocalRandom.current().nextLong(actual / 2 + 1);
+        actual = Math.min(max, actual * 2);
+        return espera;
+    }
+
+    public void reset() {
+        actual = base;
+    }
+}
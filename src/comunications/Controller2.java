@@ -2,73 +2,263 @@ package comunications;
 
 import controller.ControllerMain;
 import comunications.channel.Channel;
+import comunications.channel.Latencia;
 import comunications.connectors.CC;
 import comunications.connectors.SC;
-import model.dto.BolaDTO;
-import model.dto.SpriteDTO;
+import comunications.nio.NioTransport;
+import comunications.udp.UdpHandoff;
+import model.dto.LoteBolas;
 
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class Controller2 {
 
+    /**
+     * Transporte a usar: "bloqueante" (Channel + SC + CC, hilos por conexión)
+     * o "nio" (NioTransport, un único hilo con Selector para todo el proceso).
+     * Se elige con -Dbolas.transporte=nio. Todos los peers del anillo tienen que usar el mismo.
+     */
+    public static final String TRANSPORTE = System.getProperty("bolas.transporte", "bloqueante");
+
     private final ControllerMain master;
+    private final Anillo anillo;
+
+    private final NioTransport nio; // solo en modo "nio"
+    private final UdpHandoff udp;   // solo con -Dbolas.udp=true (traspasos por UDP, TCP de respaldo)
 
-    private final Channel channel;
     private final CC clientConnector;
     private final SC serverConnector;
 
-    private final int localPort1;
-    private final int localPort2;
+    // salida: hacia el siguiente peer vivo del anillo (lo que sale por mi derecha)
+    private volatile Channel salida;
+    private volatile int saltoSalida;
 
-    public Controller2(ControllerMain master, String ipRemota, int mainPort, int auxPort) {
-        this.master = master;
+    // ReentrantLock y no synchronized: con hilos virtuales (Hilos) no fija el carrier
+    private final ReentrantLock salidaLock = new ReentrantLock();
+    private final Condition salidaCaida = salidaLock.newCondition(); // aviso a CC cuando cae la salida
 
-        this.localPort1 = mainPort;
-        this.localPort2 = auxPort;
+    // entradas: una por cada peer que me tiene como sucesor
+    private final Set<Channel> entradas = ConcurrentHashMap.newKeySet();
 
-        this.channel = new Channel(ipRemota, this);
-        this.serverConnector = new SC(this, mainPort, auxPort);
-        this.clientConnector = new CC(this, mainPort, auxPort, ipRemota);
+    public Controller2(ControllerMain master, Anillo anillo) {
+        this.master = master;
+        this.anillo = anillo;
+
+        if ("nio".equalsIgnoreCase(TRANSPORTE)) {
+            this.nio = new NioTransport(this, anillo);
+            this.serverConnector = null;
+            this.clientConnector = null;
+        } else {
+            this.nio = null;
+            this.serverConnector = new SC(this, anillo);
+            this.clientConnector = new CC(this, anillo);
+        }
 
         inicializar();
+
+        // SC/CC (o NIO) ya están corriendo: la primera salida puede haber llegado antes que el UDP
+        this.udp = UdpHandoff.ACTIVO ? crearUdp() : null;
+        apuntarUdp();
+    }
+
+    // mismo número de puerto que el TCP (espera a saber mi posición en el anillo)
+    private UdpHandoff crearUdp() {
+        try {
+            UdpHandoff u = new UdpHandoff(this, anillo.getLocal().port);
+            u.start();
+            return u;
+        } catch (SocketException e) {
+            System.out.println("[Controller2] Sin UDP (" + e.getMessage() + "), todo por TCP");
+            return null;
+        }
     }
 
     private void inicializar() {
-        new Thread(serverConnector, "ServerConnector").start();
-        new Thread(clientConnector, "ClientConnector").start();
+        if (nio != null) {
+            nio.start();
+            return;
+        }
+        Hilos.arrancar(serverConnector, "ServerConnector");
+        Hilos.arrancar(clientConnector, "ClientConnector");
+    }
+
+    /** True si tengo salida hacia algún peer del anillo. */
+    public boolean isValid() {
+        if (nio != null) return nio.isValid();
+
+        Channel c = salida;
+        return c != null && c.isValid();
+    }
+
+    /** Medidas (RTT, jitter, offset) del enlace de salida; null si no hay salida. */
+    public Latencia getLatenciaSalida() {
+        if (nio != null) return nio.getLatenciaSalida();
+
+        Channel c = salida;
+        return (c != null) ? c.getLatencia() : null;
+    }
+
+    /** 1 = la salida va al vecino inmediato; más = me estoy saltando peers caídos. */
+    public int getSaltoSalida() {
+        return (nio != null) ? nio.getSaltoSalida() : saltoSalida;
+    }
+
+    // ✅ con lock para que dos intentos de CC no “ganen” a la vez
+    public void setSalida(Socket socket, int salto) {
+        salidaLock.lock();
+        try {
+            Channel nuevo = new Channel(anillo.sucesor(salto).toString(), this);
+            nuevo.setSocket(socket);
+            if (!nuevo.isValid()) return;
+
+            Channel anterior = salida;
+            salida = nuevo;
+            saltoSalida = salto;
+            onNuevaSalida(salto);
+
+            // si me he acercado en el anillo, suelto la salida antigua
+            if (anterior != null) anterior.close();
+        } finally {
+            salidaLock.unlock();
+        }
     }
 
-    public boolean isValid() { return channel.isValid(); }
+    public void addEntrada(Socket socket) {
+        Channel c = new Channel(String.valueOf(socket.getRemoteSocketAddress()), this);
+        entradas.add(c);
+        c.setSocket(socket);
+        if (!c.isValid()) entradas.remove(c);
+    }
+
+    public void onChannelDown(Channel c) {
+        if (c == salida) {
+            // CC ve que no hay salida y busca el siguiente peer vivo
+            System.out.println("[Controller2] Salida caída -> CC buscará el siguiente peer vivo");
+            onSalidaCaida();
+        } else if (entradas.remove(c)) {
+            System.out.println("[Controller2] Entrada cerrada (quedan " + entradas.size() + ")");
+        }
+    }
+
+    // la salida del anillo ha cambiado: el UDP apunta al mismo peer
+    // (con salidaLock: no se cruza con apuntarUdp del constructor)
+    public void onNuevaSalida(int salto) {
+        salidaLock.lock();
+        try {
+            if (udp == null) return;
+            Anillo.Nodo nodo = anillo.sucesor(salto);
+            udp.setDestino(new InetSocketAddress(nodo.host, nodo.port));
+        } finally {
+            salidaLock.unlock();
+        }
+    }
 
-    // ✅ synchronized para que CC y SC no “ganen” a la vez
-    public synchronized void setSocket(Socket socket) {
-        channel.setSocket(socket);
+    public void onSalidaCaida() {
+        salidaLock.lock();
+        try {
+            if (udp != null) udp.setDestino(null);
+            salidaCaida.signalAll(); // despierta a CC
+        } finally {
+            salidaLock.unlock();
+        }
     }
 
-    public void onChannelDown() {
-        // solo log (pero te sirve para saber que CC/SC deberían reintentar)
-        System.out.println("[Controller2] Canal caído -> CC/SC reintentará");
+    // recién creado el UDP: que apunte a la salida que ya haya (si no, espera al siguiente onNuevaSalida)
+    private void apuntarUdp() {
+        salidaLock.lock();
+        try {
+            if (udp != null && isValid()) onNuevaSalida(getSaltoSalida());
+        } finally {
+            salidaLock.unlock();
+        }
     }
 
-    public int getAvailablePort() {
-        while (!serverConnector.isConected()) {
-            try { Thread.sleep(10); } catch (InterruptedException ignored) {}
+    /**
+     * Bloquea hasta que la salida deje de ser válida o pasen maxMs (0 = sin límite).
+     * CC espera aquí en vez de preguntar isValid() cada segundo.
+     */
+    public void esperarSalidaCaida(long maxMs) throws InterruptedException {
+        long quedan = TimeUnit.MILLISECONDS.toNanos(maxMs);
+        salidaLock.lock();
+        try {
+            while (isValid()) {
+                if (maxMs <= 0) {
+                    salidaCaida.await();
+                } else {
+                    if (quedan <= 0) return;
+                    quedan = salidaCaida.awaitNanos(quedan);
+                }
+            }
+        } finally {
+            salidaLock.unlock();
         }
-        int actual = serverConnector.getActualPort();
-        return (actual == localPort2) ? localPort1 : localPort2;
     }
 
     public int getActualListenPort() {
-        while (!serverConnector.isConected()) {
-            try { Thread.sleep(10); } catch (InterruptedException ignored) {}
+        return anillo.getLocal().port; // espera a que SC (o NIO) haya abierto su puerto
+    }
+
+    // puente hacia juego (el lote solo vale durante la llamada)
+    public void introducirBolas(LoteBolas lote) { master.introducirBolas(lote); }
+    public void introducirSprite(float posicionY, float velocidadX, float velocidadY) {
+        master.introducirSprite(posicionY, velocidadX, velocidadY);
+    }
+
+    // ==========================
+    // ENVÍO: UDP si está disponible, si no TCP
+    // (todo se codifica antes de volver: el que llama puede reutilizar el lote)
+    // ==========================
+    public void lanzarBolas(LoteBolas lote) {
+        int n = lote.size();
+        if (n == 0) return;
+
+        if (udp == null || !udp.disponible()) {
+            tcpBolas(lote, 0, n);
+            return;
+        }
+
+        // un lote por datagrama (que no se fragmente)
+        for (int from = 0; from < n; from += UdpHandoff.MAX_BOLAS_DATAGRAMA) {
+            int to = Math.min(n, from + UdpHandoff.MAX_BOLAS_DATAGRAMA);
+            if (!udp.enviarBolas(lote, from, to)) tcpBolas(lote, from, to);
+        }
+    }
+
+    public void lanzarSprite(float posicionY, float velocidadX, float velocidadY) {
+        if (udp != null && udp.enviarSprite(posicionY, velocidadX, velocidadY)) return;
+
+        if (nio != null) {
+            nio.lanzarSprite(posicionY, velocidadX, velocidadY);
+            return;
         }
-        return serverConnector.getActualPort();
+        Channel c = salida;
+        if (c != null) c.lanzarSprite(posicionY, velocidadX, velocidadY);
     }
 
-    // puente hacia juego
-    public void introducirBola(BolaDTO bolaDTO) { master.introducirBola(bolaDTO); }
-    public void lanzarBola(BolaDTO bolaDTO) { channel.lanzarBola(bolaDTO); }
+    /** Respaldo del UDP: traspaso (trama MsgCodec ya codificada) que no se pudo confirmar por UDP. */
+    public void lanzarPorTcp(ByteBuffer trama) {
+        if (nio != null) {
+            nio.lanzarTrama(trama);
+            return;
+        }
+        Channel c = salida;
+        if (c != null) c.lanzarTrama(trama);
+    }
 
-    public void introducirSprite(SpriteDTO dto) { master.introducirSprite(dto); }
-    public void lanzarSprite(SpriteDTO dto) { channel.lanzarSprite(dto); }
-}
\ No newline at end of file
+    private void tcpBolas(LoteBolas lote, int desde, int hasta) {
+        if (nio != null) {
+            nio.lanzarBolas(lote, desde, hasta);
+            return;
+        }
+        Channel c = salida;
+        if (c != null) c.lanzarBolas(lote, desde, hasta);
+    }
+}
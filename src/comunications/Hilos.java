@@ -0,0 +1,64 @@
+package comunications;
+
+import java.lang.reflect.Method;
+
+/**
+ * Hilos:
+ * Crea los hilos de red bloqueantes (ServerConnector, ClientConnector, ChannelReader, ChannelWriter).
+ * - Por defecto: hilos normales, como siempre.
+ * - Con -Dbolas.hilos=virtual: hilos virtuales (Java 21+), para meter cientos de peers
+ *   simulados en una JVM sin pagar una pila nativa por hilo.
+ *   El código de sockets bloqueantes no cambia: un hilo virtual bloqueado suelta su carrier.
+ * Si la JVM no tiene hilos virtuales se avisa y se sigue con hilos normales.
+ * (Se usa por reflexión para que el proyecto siga compilando con Java 17.)
+ */
+public final class Hilos {
+
+    public static final boolean VIRTUALES;
+
+    private static final Method OF_VIRTUAL;    // Thread.ofVirtual()
+    private static final Method BUILDER_NAME;  // Thread.Builder.name(String)
+    private static final Method BUILDER_START; // Thread.Builder.start(Runnable)
+
+    static {
+        Method ofVirtual = null, name = null, start = null;
+
+        if ("virtual".equalsIgnoreCase(System.getProperty("bolas.hilos"))) {
+            try {
+                Class<?> builder = Class.forName("java.lang.Thread$Builder");
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                name = builder.getMethod("name", String.class);
+                start = builder.getMethod("start", Runnable.class);
+                ofVirtual.invoke(null); // en Java 19/20 sin --enable-preview falla aquí
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                System.out.println("[Hilos] Esta JVM no tiene hilos virtuales (" + e + "), uso hilos normales");
+                ofVirtual = null;
+            }
+        }
+
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = name;
+        BUILDER_START = start;
+        VIRTUALES = ofVirtual != null;
+
+        if (VIRTUALES) System.out.println("[Hilos] Red con hilos virtuales");
+    }
+
+    private Hilos() {}
+
+    /** Crea y arranca un hilo de red con ese nombre. */
+    public static Thread arrancar(Runnable tarea, String nombre) {
+        if (VIRTUALES) {
+            try {
+                Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), nombre);
+                return (Thread) BUILDER_START.invoke(builder, tarea);
+            } catch (ReflectiveOperationException e) {
+                System.out.println("[Hilos] No pude crear hilo virtual: " + e.getMessage());
+            }
+        }
+
+        Thread t = new Thread(tarea, nombre);
+        t.start();
+        return t;
+    }
+}
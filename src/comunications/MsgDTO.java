@@ -5,7 +5,18 @@ import java.io.Serializable;
 public class MsgDTO implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    private final int header;              // 0 bola, 1 ping, 2 pong, 3 sprite
+    // headers del protocolo
+    public static final int BOLA = 0;
+    public static final int PING = 1;
+    public static final int PONG = 2;
+    public static final int SPRITE = 3;
+    public static final int BOLAS = 4;      // lote de bolas de un mismo tick (solo en binario, ver MsgCodec)
+
+    // negociación del códec binario (solo viajan con serialización Java)
+    public static final int HELLO_BIN = 10; // "yo entiendo el códec binario"
+    public static final int BIN_ON = 11;    // "a partir de aquí te escribo en binario"
+
+    private final int header;              // 0 bola, 1 ping, 2 pong, 3 sprite, 4 lote de bolas
     private final Serializable payload;    // model.dto.BolaDTO o model.dto.SpriteDTO
 
     public MsgDTO(int header, Serializable payload) {
@@ -20,4 +31,4 @@ public class MsgDTO implements Serializable {
     public Serializable getPayload() {
         return payload;
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,31 @@
 package comunications.channel;
 
 import comunications.Controller2;
+import comunications.Hilos;
 import comunications.MsgDTO;
 import model.dto.BolaDTO;
+import model.dto.LoteBolas;
 import model.dto.SpriteDTO;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReentrantLock;
 
-public class Channel implements Runnable {
+/**
+ * Channel:
+ * Una conexión del transporte bloqueante (un hilo lector + un ChannelWriter).
+ * - Usa ReentrantLock y no synchronized: setSocket() bloquea leyendo la cabecera del
+ *   ObjectInputStream y, con hilos virtuales (Hilos), un synchronized ahí fijaría el carrier.
+ */
+public class Channel implements Runnable, HealthChannel.Vigilado {
+
+    private static final int HANDSHAKE_MS = Integer.getInteger("bolas.handshakeMs", 2_000);
 
     private final String ipRemota;
     private final Controller2 com;
@@ -20,9 +34,17 @@ public class Channel implements Runnable {
     private volatile ObjectInputStream in;
     private volatile ObjectOutputStream out;
 
+    // entrada con códec binario (MsgCodec): null hasta que el otro peer manda BIN_ON
+    private volatile DataInputStream binIn;
+
+    private final Latencia latencia = new Latencia();
+
     private volatile HealthChannel healthChannel;
+    private volatile ChannelWriter writer;
     private volatile Thread readerThread;
-    private volatile Thread healthThread;
+    private volatile Thread writerThread;
+
+    private final ReentrantLock lock = new ReentrantLock();
 
     public Channel(String ipRemota, Controller2 com) {
         this.ipRemota = ipRemota;
@@ -30,17 +52,29 @@ public class Channel implements Runnable {
     }
 
     // ✅ estricto: si algo está medio muerto, esto debe ser false
-    public synchronized boolean isValid() {
-        return socket != null
-                && socket.isConnected()
-                && !socket.isClosed()
-                && !socket.isInputShutdown()
-                && !socket.isOutputShutdown()
+    // (sin lock: todo es volatile y se lee una sola vez)
+    @Override
+    public boolean isValid() {
+        Socket s = socket;
+        return s != null
+                && s.isConnected()
+                && !s.isClosed()
+                && !s.isInputShutdown()
+                && !s.isOutputShutdown()
                 && in != null
                 && out != null;
     }
 
-    public synchronized void setSocket(Socket newSocket) {
+    public void setSocket(Socket newSocket) {
+        lock.lock();
+        try {
+            abrir(newSocket);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void abrir(Socket newSocket) {
         // Si ya tengo uno válido, cierro el nuevo
         if (isValid()) {
             try { newSocket.close(); } catch (IOException ignored) {}
@@ -61,18 +95,23 @@ public class Channel implements Runnable {
             // ✅ ORDEN SEGURO (evita deadlock ObjectStream)
             out = new ObjectOutputStream(socket.getOutputStream());
             out.flush();
+            socket.setSoTimeout(HANDSHAKE_MS); // un peer que conecta y no manda la cabecera no deja esto colgado
             in = new ObjectInputStream(socket.getInputStream());
+            socket.setSoTimeout(0);
 
-            // health
-            healthChannel = new HealthChannel(this);
+            // writer (único hilo que escribe en el socket)
+            writer = new ChannelWriter(this, socket, out);
+            writerThread = Hilos.arrancar(writer, "ChannelWriter");
+
+            // ofrezco el códec binario; un peer antiguo lo ignora y seguimos con writeObject
+            writer.getCola().vacia(MsgDTO.HELLO_BIN);
 
             // reader
-            readerThread = new Thread(this, "ChannelReader");
-            readerThread.start();
+            readerThread = Hilos.arrancar(this, "ChannelReader");
 
-            // health thread
-            healthThread = new Thread(healthChannel, "HealthChannel");
-            healthThread.start();
+            // health (sin hilo propio: lo revisa el scheduler compartido)
+            healthChannel = new HealthChannel(this);
+            healthChannel.start();
 
             System.out.println("[Channel] ✅ Listo (IP remota: " + ipRemota + ")");
 
@@ -83,31 +122,61 @@ public class Channel implements Runnable {
     }
 
     // ==========================
-    // ENVÍO
+    // ENVÍO (se codifica directamente en la cola del writer: no bloquea ni crea objetos)
     // ==========================
+    @Override
     public void comprobarConexion() {
-        send(new MsgDTO(1, null)); // ping
+        ColaTramas c = cola();
+        if (c != null) c.ping();
+    }
+
+    /**
+     * Bolas [desde, hasta) del lote: todas las de un mismo tick viajan en una trama (header 4),
+     * troceada si pasa del máximo que admite una trama. El lote se puede reutilizar al volver.
+     */
+    public void lanzarBolas(LoteBolas lote, int desde, int hasta) {
+        ColaTramas c = cola();
+        if (c != null && hasta > desde) c.bolas(lote, desde, hasta);
     }
 
-    public void lanzarBola(BolaDTO bolaDTO) {
-        send(new MsgDTO(0, bolaDTO)); // bola
+    public void lanzarSprite(float posicionY, float velocidadX, float velocidadY) {
+        ColaTramas c = cola();
+        if (c != null) c.sprite(posicionY, velocidadX, velocidadY);
     }
 
-    public void lanzarSprite(SpriteDTO dto) {
-        send(new MsgDTO(3, dto)); // sprite
+    /** Trama ya codificada (lo que queda en trama). */
+    public void lanzarTrama(ByteBuffer trama) {
+        ColaTramas c = cola();
+        if (c != null) c.trama(trama);
     }
 
-    private synchronized void send(MsgDTO msg) {
-        if (!isValid()) return;
+    /** RTT, jitter y offset de reloj medidos con el ping/pong de esta conexión. */
+    @Override
+    public Latencia getLatencia() {
+        return latencia;
+    }
 
+    public boolean isBinario() {
+        ChannelWriter w = writer;
+        return binIn != null && w != null && w.isBinario();
+    }
+
+    private ColaTramas cola() {
+        ChannelWriter w = writer;
+        return (w != null && isValid()) ? w.getCola() : null;
+    }
+
+    void falloEscritura(ChannelWriter w, IOException e) {
+        lock.lock();
         try {
-            out.writeObject(msg);
-            out.flush();
-        } catch (IOException e) {
+            if (w != writer) return; // writer de una conexión anterior
+
             System.out.println("[Channel] Error enviando: " + e.getMessage());
             closeInternal();          // ✅ deja listo para reconectar
-            com.onChannelDown();      // opcional (log)
+        } finally {
+            lock.unlock();
         }
+        com.onChannelDown(this);      // opcional (log)
     }
 
     // ==========================
@@ -115,14 +184,20 @@ public class Channel implements Runnable {
     // ==========================
     @Override
     public void run() {
+        Lector lector = new Lector(); // buffers de este hilo lector (se reutilizan en cada mensaje)
+
         while (true) {
             try {
                 if (!isValid()) break;
 
-                Object obj = in.readObject();
-                if (!(obj instanceof MsgDTO msg)) continue;
-
-                procesarMensaje(msg);
+                DataInputStream bin = binIn;
+                if (bin != null) {
+                    ByteBuffer trama = MsgCodec.leerTrama(bin, lector.scratch);
+                    MsgCodec.leer(trama, lector.lote, lector.recibido());
+                } else {
+                    Object obj = in.readObject();
+                    if (obj instanceof MsgDTO m) lector.recibido().antiguo(m);
+                }
 
             } catch (EOFException e) {
                 System.out.println("[Channel] Conexión cerrada por el otro extremo");
@@ -139,50 +214,118 @@ public class Channel implements Runnable {
             }
         }
 
-        closeInternal();          // ✅ CLAVE
-        com.onChannelDown();
+        close();          // ✅ CLAVE
+        com.onChannelDown(this);
         System.out.println("[Channel] desconectado, esperando reconexión...");
     }
 
-    private void procesarMensaje(MsgDTO msg) {
-        switch (msg.getHeader()) {
+    /** Lo que llega por esta conexión (un Lector por hilo lector). */
+    private final class Lector implements MsgCodec.Receptor {
+        final ByteBuffer scratch = MsgCodec.newBuffer();
+        final LoteBolas lote = new LoteBolas();
+        long t1;
+
+        // ✅ cualquier mensaje vale como señal de vida (no hace falta esperar al pong)
+        Lector recibido() {
+            t1 = Reloj.micros();
+            HealthChannel h = healthChannel;
+            if (h != null) h.notifyHealthy();
+            return this;
+        }
 
-            case 0: { // bola
-                BolaDTO bola = (BolaDTO) msg.getPayload();
-                com.introducirBola(bola);
-                break;
-            }
+        @Override
+        public void bolas(LoteBolas l) {
+            com.introducirBolas(l);
+        }
 
-            case 1: // ping
-                send(new MsgDTO(2, null)); // pong
-                break;
+        @Override
+        public void sprite(float posicionY, float velocidadX, float velocidadY) {
+            com.introducirSprite(posicionY, velocidadX, velocidadY);
+        }
 
-            case 2: // pong
-                if (healthChannel != null) healthChannel.notifyHealthy();
-                break;
+        @Override
+        public void ping(long t0) {
+            ColaTramas c = cola();
+            if (c != null) c.pong(t0, t1);
+        }
 
-            case 3: { // sprite
-                SpriteDTO dto = (SpriteDTO) msg.getPayload();
-                com.introducirSprite(dto);
-                break;
+        @Override
+        public void pong(long t0, long t1Remoto, long t2) {
+            latencia.registrarPong(t0, t1Remoto, t2, t1);
+        }
+
+        @Override
+        public void control(int header) throws IOException {
+            switch (header) {
+                case MsgDTO.HELLO_BIN: {
+                    // el otro peer entiende MsgCodec: el writer escribe BIN_ON y cambia a binario
+                    ColaTramas c = cola();
+                    if (c != null) c.vacia(MsgDTO.BIN_ON);
+                    break;
+                }
+                case MsgDTO.BIN_ON:
+                    // todo lo que venga después de este mensaje ya es MsgCodec
+                    // (ObjectInputStream no lee por adelantado fuera del modo bloque: no se pierde nada)
+                    binIn = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    System.out.println("[Channel] Entrada en binario");
+                    break;
             }
+        }
 
-            default:
-                System.out.println("[Channel] Header desconocido: " + msg.getHeader());
+        // formato antiguo (readObject): mismo camino que el binario
+        void antiguo(MsgDTO msg) throws IOException {
+            switch (msg.getHeader()) {
+
+                case MsgDTO.BOLA: {
+                    BolaDTO b = (BolaDTO) msg.getPayload();
+                    lote.clear();
+                    lote.add(b.posicionY, b.radio, b.velocidadX, b.velocidadY);
+                    bolas(lote);
+                    break;
+                }
+
+                case MsgDTO.SPRITE: {
+                    SpriteDTO dto = (SpriteDTO) msg.getPayload();
+                    sprite(dto.posicionY, dto.velocidadX, dto.velocidadY);
+                    break;
+                }
+
+                case MsgDTO.PING:
+                    ping(0); // pong vacío
+                    break;
+
+                case MsgDTO.PONG:
+                    break; // un peer antiguo no manda medidas
+
+                case MsgDTO.HELLO_BIN:
+                case MsgDTO.BIN_ON:
+                    control(msg.getHeader());
+                    break;
+
+                default:
+                    System.out.println("[Channel] Header desconocido: " + msg.getHeader());
+            }
         }
     }
 
     // ==========================
     // CIERRE
     // ==========================
-    public synchronized void close() {
-        closeInternal();
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closeInternal();
+        } finally {
+            lock.unlock();
+        }
     }
 
-    private synchronized void closeInternal() {
+    // llamar con el lock cogido
+    private void closeInternal() {
         // parar hilos si existen
         if (readerThread != null) readerThread.interrupt();
-        if (healthThread != null) healthThread.interrupt();
+        if (writerThread != null) writerThread.interrupt();
 
         try { if (in != null) in.close(); } catch (IOException ignored) {}
         try { if (out != null) out.close(); } catch (IOException ignored) {}
@@ -190,10 +333,14 @@ public class Channel implements Runnable {
 
         in = null;
         out = null;
+        binIn = null;
+        writer = null;
         socket = null;
 
         readerThread = null;
-        healthThread = null;
+        writerThread = null;
+
+        if (healthChannel != null) healthChannel.stop();
         healthChannel = null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package comunications.channel;
+
+import comunications.MsgDTO;
+import model.dto.BolaDTO;
+import model.dto.LoteBolas;
+import model.dto.SpriteDTO;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * ChannelWriter:
+ * Hilo escritor de un Channel (uno por conexión).
+ * - Los productores (juego, lector, health) solo escriben tramas en la ColaTramas:
+ *   nunca se bloquean en el socket ni crean objetos por mensaje.
+ * - Se queda con todo lo encolado de una vez, lo escribe y hace UN flush por tanda.
+ * - En binario el buffer va tal cual al socket. Con un peer antiguo (sin códec binario)
+ *   cada trama se convierte a su MsgDTO de siempre (ahí sí hay objetos: es el formato antiguo).
+ *
+ * Es el único que escribe en el socket, así que el cambio a binario (BIN_ON)
+ * también pasa por aquí y queda ordenado respecto al resto de mensajes.
+ */
+class ChannelWriter implements Runnable, MsgCodec.Receptor {
+
+    private final Channel channel;
+    private final Socket socket;
+    private final ObjectOutputStream out;
+    private volatile OutputStream binOut; // null hasta que escribo BIN_ON
+
+    private final ColaTramas cola = new ColaTramas(false, "ChannelWriter", null);
+    private final LoteBolas lote = new LoteBolas(); // solo para el formato antiguo
+
+    ChannelWriter(Channel channel, Socket socket, ObjectOutputStream out) {
+        this.channel = channel;
+        this.socket = socket;
+        this.out = out;
+    }
+
+    ColaTramas getCola() { return cola; }
+
+    boolean isBinario() { return binOut != null; }
+
+    long getDescartados() { return cola.getDescartados(); }
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                ByteBuffer buf = cola.esperar();
+                try {
+                    escribir(buf);
+                } finally {
+                    cola.devolver(buf);
+                }
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            channel.falloEscritura(this, e);
+        }
+    }
+
+    private void escribir(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (binOut != null) {
+                binOut.write(buf.array(), buf.position(), buf.remaining());
+                return;
+            }
+            MsgCodec.leer(buf, lote, this); // formato antiguo: trama a trama
+        }
+    }
+
+    private void flush() throws IOException {
+        if (binOut != null) binOut.flush();
+        else out.flush();
+    }
+
+    // ==========================
+    // FORMATO ANTIGUO (writeObject)
+    // ==========================
+
+    @Override
+    public void bolas(LoteBolas l) throws IOException {
+        // un peer sin códec binario no conoce el lote: van sueltas (pero con un solo flush)
+        for (int i = 0; i < l.size(); i++) {
+            BolaDTO b = new BolaDTO(l.getPosicionY(i), l.getRadio(i), l.getVelocidadX(i), l.getVelocidadY(i));
+            out.writeObject(new MsgDTO(MsgDTO.BOLA, b));
+        }
+    }
+
+    @Override
+    public void sprite(float posicionY, float velocidadX, float velocidadY) throws IOException {
+        out.writeObject(new MsgDTO(MsgDTO.SPRITE, new SpriteDTO(posicionY, velocidadX, velocidadY)));
+    }
+
+    // un peer antiguo no conoce las medidas: ping/pong vacíos
+    @Override
+    public void ping(long t0) throws IOException {
+        out.writeObject(new MsgDTO(MsgDTO.PING, null));
+    }
+
+    @Override
+    public void pong(long t0, long t1, long t2) throws IOException {
+        out.writeObject(new MsgDTO(MsgDTO.PONG, null));
+    }
+
+    @Override
+    public void control(int header) throws IOException {
+        out.writeObject(new MsgDTO(header, null));
+
+        if (header == MsgDTO.BIN_ON) {
+            // último mensaje serializado; lo que venga detrás ya es MsgCodec
+            out.flush();
+            binOut = socket.getOutputStream();
+            System.out.println("[Channel] Salida en binario");
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package comunications.channel;
+
+import comunications.MsgDTO;
+import model.dto.LoteBolas;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ColaTramas:
+ * Cola de salida de una conexión, ya codificada con MsgCodec (sin un objeto por mensaje).
+ * - Doble buffer: los productores (juego, lector, health) escriben las tramas en el buffer activo;
+ *   el escritor se queda con él entero (tomar/esperar) y lo devuelve al acabar.
+ * - Acotada: si la trama no cabe se descarta y se cuenta (igual que la cola de mensajes de antes).
+ * - Al tomar el buffer se sellan los ping/pong (MsgCodec.sellar).
+ *
+ * Un solo consumidor: tiene que devolver() el buffer antes de volver a tomar().
+ * aviso (opcional) se llama cuando la cola pasa de vacía a tener algo (NIO: despertar al loop).
+ */
+public class ColaTramas {
+
+    private static final int CAPACIDAD = 2 * MsgCodec.MAX_TRAMA;
+
+    private final String nombre;
+    private final Runnable aviso;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayDatos = lock.newCondition();
+
+    private ByteBuffer activo;  // donde escriben los productores
+    private ByteBuffer libre;   // null mientras lo tiene el escritor
+    private boolean estabaVacia;
+
+    private final AtomicLong descartados = new AtomicLong();
+
+    public ColaTramas(boolean directo, String nombre, Runnable aviso) {
+        this.nombre = nombre;
+        this.aviso = aviso;
+        this.activo = directo ? ByteBuffer.allocateDirect(CAPACIDAD) : ByteBuffer.allocate(CAPACIDAD);
+        this.libre = directo ? ByteBuffer.allocateDirect(CAPACIDAD) : ByteBuffer.allocate(CAPACIDAD);
+    }
+
+    // ==========================
+    // PRODUCTORES
+    // ==========================
+
+    /** Bolas [desde, hasta) del lote, troceadas en tramas de MAX_BOLAS_LOTE. */
+    public boolean bolas(LoteBolas lote, int desde, int hasta) {
+        boolean todas = true;
+        for (int from = desde; from < hasta; from += MsgCodec.MAX_BOLAS_LOTE) {
+            int to = Math.min(hasta, from + MsgCodec.MAX_BOLAS_LOTE);
+            if (!reservar(MsgCodec.tamanoBolas(to - from))) {
+                todas = false;
+                continue;
+            }
+            try {
+                MsgCodec.putBolas(activo, lote, from, to);
+            } finally {
+                soltar();
+            }
+        }
+        return todas;
+    }
+
+    public boolean sprite(float posicionY, float velocidadX, float velocidadY) {
+        if (!reservar(MsgCodec.TAMANO_SPRITE)) return false;
+        try {
+            MsgCodec.putSprite(activo, posicionY, velocidadX, velocidadY);
+        } finally {
+            soltar();
+        }
+        return true;
+    }
+
+    public boolean ping() {
+        if (!reservar(MsgCodec.TAMANO_PING)) return false;
+        try {
+            MsgCodec.putPing(activo);
+        } finally {
+            soltar();
+        }
+        return true;
+    }
+
+    /** Pong para un ping con t0 recibido en t1 (t0 = 0: ping sin medidas -> pong vacío). */
+    public boolean pong(long t0, long t1) {
+        if (t0 == 0) return vacia(MsgDTO.PONG);
+
+        if (!reservar(MsgCodec.TAMANO_PONG)) return false;
+        try {
+            MsgCodec.putPong(activo, t0, t1);
+        } finally {
+            soltar();
+        }
+        return true;
+    }
+
+    public boolean vacia(int header) {
+        if (!reservar(MsgCodec.TAMANO_VACIA)) return false;
+        try {
+            MsgCodec.putVacia(activo, header);
+        } finally {
+            soltar();
+        }
+        return true;
+    }
+
+    /** Una trama ya codificada (lo que queda en src), p.ej. un traspaso UDP que vuelve a TCP. */
+    public boolean trama(ByteBuffer src) {
+        if (!reservar(src.remaining())) return false;
+        try {
+            activo.put(src);
+        } finally {
+            soltar();
+        }
+        return true;
+    }
+
+    // coge el lock si la trama cabe; si no, la cuenta como descartada
+    private boolean reservar(int bytes) {
+        lock.lock();
+        if (activo.remaining() < bytes) {
+            lock.unlock();
+            long n = descartados.incrementAndGet();
+            if (n == 1 || n % 100 == 0) {
+                System.out.println("[" + nombre + "] Cola llena, mensajes descartados: " + n);
+            }
+            return false;
+        }
+        estabaVacia = activo.position() == 0;
+        return true;
+    }
+
+    private void soltar() {
+        boolean avisar = estabaVacia;
+        if (avisar) hayDatos.signal();
+        lock.unlock();
+
+        if (avisar && aviso != null) aviso.run();
+    }
+
+    // ==========================
+    // CONSUMIDOR
+    // ==========================
+
+    /** Espera a que haya algo y se queda con todo (modo lectura, ya sellado). */
+    public ByteBuffer esperar() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (activo.position() == 0) hayDatos.await();
+            return cambiar();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Como esperar pero sin bloquear: null si no hay nada. */
+    public ByteBuffer tomar() {
+        lock.lock();
+        try {
+            return (activo.position() == 0) ? null : cambiar();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** El escritor ha terminado con el buffer que tomó. */
+    public void devolver(ByteBuffer buf) {
+        lock.lock();
+        try {
+            buf.clear();
+            libre = buf;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ByteBuffer cambiar() {
+        ByteBuffer lleno = activo;
+        activo = libre;
+        libre = null;
+
+        lleno.flip();
+        MsgCodec.sellar(lleno);
+        return lleno;
+    }
+
+    public long getDescartados() { return descartados.get(); }
+}
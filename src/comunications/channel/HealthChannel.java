@@ -1,47 +1,118 @@
 package comunications.channel;
 
-public class HealthChannel implements Runnable {
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
-    private final Channel channel;
-    private volatile long ultimaRespuesta;
+/**
+ * HealthChannel:
+ * Vigila que una conexión siga viva. Ya no tiene hilo propio: todas las conexiones
+ * del proceso se revisan desde un único scheduler compartido ("Heartbeat").
+ *
+ * - Cualquier mensaje recibido cuenta como señal de vida (no solo el pong).
+ * - Solo se manda ping si la conexión lleva IDLE_PING sin recibir nada
+ *   (con tráfico de bolas no hace falta pinguear).
+ * - Si pasa TIMEOUT sin recibir nada, se cierra.
+ *
+ * Configurable con -Dbolas.pingIdleMs y -Dbolas.timeoutMs.
+ */
+public class HealthChannel {
+
+    /** Lo que HealthChannel necesita de una conexión (Channel bloqueante o NioChannel). */
+    public interface Vigilado {
+        boolean isValid();
+        void comprobarConexion(); // manda un ping
+        void close();
+        Latencia getLatencia();
+    }
+
+    public static final long IDLE_PING = Long.getLong("bolas.pingIdleMs", 1_000);
+    public static final long TIMEOUT = Long.getLong("bolas.timeoutMs", 10_000); // 10s, como siempre
+    private static final long TICK = 250;
 
-    private static final long TIMEOUT = 10_000;       // 10s
-    private static final long CHECK_INTERVAL = 3_000; // cada 3s
-    private static final long WAIT_PONG = 2_000;      // espera 2s
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "Heartbeat");
+                t.setDaemon(true);
+                return t;
+            });
 
-    public HealthChannel(Channel channel) {
+    private final Vigilado channel;
+    private volatile long ultimaRespuesta;
+    private long ultimoPing;          // solo hilo Heartbeat
+    private boolean degradado = false;
+    private volatile ScheduledFuture<?> tarea;
+
+    public HealthChannel(Vigilado channel) {
         this.channel = channel;
-        this.ultimaRespuesta = System.currentTimeMillis();
+        this.ultimaRespuesta = ahora();
+        this.ultimoPing = ultimaRespuesta;
+    }
+
+    public void start() {
+        tarea = SCHEDULER.scheduleWithFixedDelay(this::revisar, TICK, TICK, TimeUnit.MILLISECONDS);
     }
 
-    @Override
-    public void run() {
-        while (true) {
-            if (Thread.currentThread().isInterrupted()) break;
-            if (channel == null || !channel.isValid()) break;
+    public void stop() {
+        ScheduledFuture<?> t = tarea;
+        if (t != null) t.cancel(false);
+    }
 
-            sleep(CHECK_INTERVAL);
+    /** Ha llegado algo por la conexión (cualquier mensaje). */
+    public void notifyHealthy() {
+        this.ultimaRespuesta = ahora();
+    }
 
-            if (channel == null || !channel.isValid()) break;
-            channel.comprobarConexion();
+    private void revisar() {
+        try {
+            if (!channel.isValid()) {
+                stop();
+                return;
+            }
 
-            sleep(WAIT_PONG);
+            long now = ahora();
+            long sinRespuesta = now - ultimaRespuesta;
+            avisarSiDegradado(sinRespuesta);
 
-            long sinRespuesta = System.currentTimeMillis() - ultimaRespuesta;
             if (sinRespuesta > TIMEOUT) {
                 System.out.println("[Health] Sin respuesta " + (sinRespuesta / 1000) + "s -> cierro");
+                stop();
                 channel.close();
-                break;
+                return;
+            }
+
+            // conexión en silencio: ping (como mucho uno cada IDLE_PING)
+            if (sinRespuesta >= IDLE_PING && now - ultimoPing >= IDLE_PING) {
+                ultimoPing = now;
+                channel.comprobarConexion();
             }
+        } catch (Exception e) {
+            System.out.println("[Health] Error revisando: " + e.getMessage());
         }
-        System.out.println("[Health] Thread terminado");
     }
 
-    public synchronized void notifyHealthy() {
-        this.ultimaRespuesta = System.currentTimeMillis();
+    /**
+     * Aviso antes de que salte el TIMEOUT:
+     * - lleva más de dos IDLE_PING sin recibir nada (se ha perdido algún pong)
+     * - o el p99 del RTT es alto
+     */
+    private void avisarSiDegradado(long sinRespuesta) {
+        Latencia lat = channel.getLatencia();
+        boolean ahora = sinRespuesta > 2 * IDLE_PING || lat.isDegradado();
+
+        if (ahora && !degradado) {
+            System.out.println("[Health] ⚠ Enlace degradado: " + (sinRespuesta / 1000) + "s sin respuesta, " + lat);
+        } else if (!ahora && degradado) {
+            System.out.println("[Health] Enlace recuperado: " + lat);
+        }
+        degradado = ahora;
     }
 
-    private void sleep(long ms) {
-        try { Thread.sleep(ms); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    public boolean isDegradado() { return degradado; }
+
+    // ms monótonos (no dependen de que cambie la hora del sistema)
+    private static long ahora() {
+        return System.nanoTime() / 1_000_000L;
     }
-}
\ No newline at end of file
+}
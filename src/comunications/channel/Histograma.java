@@ -0,0 +1,71 @@
+package comunications.channel;
+
+/**
+ * Histograma:
+ * Histograma de memoria fija para valores en microsegundos (0 .. ~2 min).
+ * - Por debajo de 64 un bucket por valor.
+ * - Por encima, 32 sub-buckets por cada potencia de 2 (error < 3%).
+ * No reserva memoria al añadir; no es thread-safe (lo protege quien lo usa).
+ */
+public class Histograma {
+
+    private static final int LINEAL = 64;
+    private static final int SUB = 32;
+    private static final int MAX_EXP = 37; // 2^37 us ~ 38h, de sobra
+    private static final int BUCKETS = LINEAL + (MAX_EXP - 6 + 1) * SUB;
+
+    private final long[] cuentas = new long[BUCKETS];
+    private long total = 0;
+    private long max = 0;
+
+    public void add(long v) {
+        if (v < 0) v = 0;
+        cuentas[indice(v)]++;
+        total++;
+        if (v > max) max = v;
+    }
+
+    public long getTotal() { return total; }
+    public long getMax() { return max; }
+
+    /** Valor aproximado del percentil p (0..100); 0 si está vacío. */
+    public long percentil(double p) {
+        if (total == 0) return 0;
+
+        long objetivo = (long) Math.ceil(total * p / 100.0);
+        if (objetivo < 1) objetivo = 1;
+
+        long acumulado = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            acumulado += cuentas[i];
+            if (acumulado >= objetivo) return Math.min(max, valorSuperior(i));
+        }
+        return max;
+    }
+
+    public void reset() {
+        java.util.Arrays.fill(cuentas, 0);
+        total = 0;
+        max = 0;
+    }
+
+    private static int indice(long v) {
+        if (v < LINEAL) return (int) v;
+
+        int exp = 63 - Long.numberOfLeadingZeros(v); // >= 6
+        if (exp > MAX_EXP) return BUCKETS - 1;
+        int sub = (int) ((v >>> (exp - 5)) & (SUB - 1));
+        return LINEAL + (exp - 6) * SUB + sub;
+    }
+
+    // límite superior del bucket i (para no infravalorar los percentiles)
+    private static long valorSuperior(int i) {
+        if (i < LINEAL) return i;
+
+        int exp = (i - LINEAL) / SUB + 6;
+        int sub = (i - LINEAL) % SUB;
+        long base = 1L << exp;
+        long ancho = 1L << (exp - 5);
+        return base + (sub + 1) * ancho - 1;
+    }
+}
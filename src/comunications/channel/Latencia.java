@@ -0,0 +1,114 @@
+package comunications.channel;
+
+/**
+ * Latencia:
+ * Medidas del enlace sacadas del ping/pong (una por conexión).
+ * - RTT = (t3 - t0) - (t2 - t1)          -> histograma p50/p99/max
+ * - jitter = variación entre RTT seguidos (suavizado como RFC 3550, y su histograma)
+ * - Los histogramas van por ventanas de VENTANA_NS (como model.Medidor): al cerrarse una, sus números
+ *   quedan publicados y se empieza otra. Así p99 e isDegradado dicen cómo va el enlace ahora, no desde
+ *   que se abrió. Una ventana sin pongs (había tráfico y no hizo falta pinguear) publica "sin muestras".
+ * - offset de reloj = ((t1 - t0) + (t2 - t3)) / 2, tomado de la muestra con menor RTT
+ *   de las últimas FILTRO (la menos afectada por colas)
+ * Memoria fija; todo en microsegundos. Escribe el lector del canal, lee quien quiera (UI, logs).
+ */
+public class Latencia {
+
+    private static final int FILTRO = 8;
+    private static final long UMBRAL_DEGRADADO = 200_000; // p99 de RTT por encima de 200ms
+    private static final long VENTANA_NS = 10_000_000_000L; // con un ping por segundo, ~10 muestras
+
+    // ventana en curso
+    private final Histograma rtt = new Histograma();
+    private final Histograma jitterHist = new Histograma();
+    private long inicioVentana = System.nanoTime();
+
+    // de la última ventana cerrada (antes de cerrar la primera se lee la que está en curso)
+    private boolean hayCerrada = false;
+    private long muestras = 0, rttP50 = 0, rttP99 = 0, rttMax = 0, jitterP99 = 0;
+
+    private long ultimoRtt = -1;
+    private double jitter = 0;
+
+    private final long[] filtroRtt = new long[FILTRO];
+    private final long[] filtroOffset = new long[FILTRO];
+    private int filtroPos = 0;
+    private int filtroN = 0;
+    private long offset = 0;
+
+    /**
+     * Ha llegado en t3 el pong de un ping mandado en t0 (t1/t2: llegada/salida en el otro peer).
+     * t0 = 0: pong sin medidas (peer antiguo).
+     */
+    public synchronized void registrarPong(long t0, long t1, long t2, long t3) {
+        if (t0 == 0) return;
+        cerrarSiToca();
+
+        long muestra = Math.max(0, (t3 - t0) - (t2 - t1));
+        long off = ((t1 - t0) + (t2 - t3)) / 2;
+
+        rtt.add(muestra);
+        if (ultimoRtt >= 0) {
+            long d = Math.abs(muestra - ultimoRtt);
+            jitter += (d - jitter) / 16.0;
+            jitterHist.add(d);
+        }
+        ultimoRtt = muestra;
+
+        filtroRtt[filtroPos] = muestra;
+        filtroOffset[filtroPos] = off;
+        filtroPos = (filtroPos + 1) % FILTRO;
+        if (filtroN < FILTRO) filtroN++;
+
+        int mejor = 0;
+        for (int i = 1; i < filtroN; i++) {
+            if (filtroRtt[i] < filtroRtt[mejor]) mejor = i;
+        }
+        offset = filtroOffset[mejor];
+    }
+
+    // ==========================
+    // CONSULTA
+    // ==========================
+    // las de p50/p99/max/muestras son de la última ventana (ver arriba)
+    public synchronized long getMuestras() { cerrarSiToca(); return hayCerrada ? muestras : rtt.getTotal(); }
+    public synchronized long getUltimoRtt() { return ultimoRtt; }
+    public synchronized long getRttP50() { cerrarSiToca(); return hayCerrada ? rttP50 : rtt.percentil(50); }
+    public synchronized long getRttP99() { cerrarSiToca(); return hayCerrada ? rttP99 : rtt.percentil(99); }
+    public synchronized long getRttMax() { cerrarSiToca(); return hayCerrada ? rttMax : rtt.getMax(); }
+
+    public synchronized long getJitter() { return (long) jitter; }
+    public synchronized long getJitterP99() { cerrarSiToca(); return hayCerrada ? jitterP99 : jitterHist.percentil(99); }
+
+    /** Cuánto va adelantado el reloj del otro peer respecto al mío (us). */
+    public synchronized long getOffset() { return offset; }
+
+    public synchronized boolean isDegradado() {
+        return getMuestras() > 0 && getRttP99() > UMBRAL_DEGRADADO;
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (getMuestras() == 0) return "sin muestras";
+        return String.format("rtt p50=%.1fms p99=%.1fms max=%.1fms jitter=%.1fms offset=%.1fms (%d muestras)",
+                getRttP50() / 1000.0, getRttP99() / 1000.0, getRttMax() / 1000.0,
+                jitter / 1000.0, offset / 1000.0, getMuestras());
+    }
+
+    // cierra la ventana en curso si ya ha pasado VENTANA_NS: publica sus números y empieza otra
+    private void cerrarSiToca() {
+        long ahora = System.nanoTime();
+        if (ahora - inicioVentana < VENTANA_NS) return;
+
+        muestras = rtt.getTotal();
+        rttP50 = rtt.percentil(50);
+        rttP99 = rtt.percentil(99);
+        rttMax = rtt.getMax();
+        jitterP99 = jitterHist.percentil(99);
+        hayCerrada = true;
+
+        rtt.reset();
+        jitterHist.reset();
+        inicioVentana = ahora;
+    }
+}
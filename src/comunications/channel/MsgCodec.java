@@ -0,0 +1,255 @@
+package comunications.channel;
+
+import comunications.MsgDTO;
+import model.dto.LoteBolas;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * MsgCodec:
+ * Códec binario compacto (sustituye a writeObject cuando los dos peers lo soportan).
+ *
+ * Trama: [u16 longitud][u8 header][payload]
+ * - longitud = bytes de header + payload
+ * - bola   (0): posicionY, radio, velocidadX, velocidadY -> 4 floats (16 bytes)
+ * - ping   (1): t0 (8 bytes) o vacío (peers sin medidas de latencia)
+ * - pong   (2): t0, t1, t2 (24 bytes) o vacío
+ * - sprite (3): posicionY, velocidadX, velocidadY -> 3 floats (12 bytes)
+ * - lote   (4): [u16 n] + n bolas (16 bytes cada una)
+ * - HELLO_BIN / BIN_ON: vacías (en el cable solo viajan serializadas, ver ChannelWriter)
+ *
+ * Un header desconocido se salta entero gracias a la longitud (no rompe el canal).
+ *
+ * Sin objetos por mensaje: se escribe desde primitivos/LoteBolas directamente en el
+ * ByteBuffer, y al leer se entrega a un Receptor (las bolas en un LoteBolas reutilizable).
+ */
+public final class MsgCodec {
+
+    /** Lo que se ha leído de una trama. El LoteBolas solo vale durante la llamada. */
+    public interface Receptor {
+        void bolas(LoteBolas lote) throws IOException;
+        void sprite(float posicionY, float velocidadX, float velocidadY) throws IOException;
+        void ping(long t0) throws IOException;                   // t0 = 0: ping sin medidas
+        void pong(long t0, long t1, long t2) throws IOException; // t0 = 0: pong sin medidas
+        void control(int header) throws IOException;             // HELLO_BIN / BIN_ON
+    }
+
+    private static final int BOLA_BYTES = 16;
+    private static final int SPRITE_BYTES = 12;
+    private static final int PING_BYTES = 8;
+    private static final int PONG_BYTES = 24;
+
+    // tamaño de cada trama completa (prefijo de longitud incluido)
+    public static final int TAMANO_SPRITE = 3 + SPRITE_BYTES;
+    public static final int TAMANO_PING = 3 + PING_BYTES;
+    public static final int TAMANO_PONG = 3 + PONG_BYTES;
+    public static final int TAMANO_VACIA = 3;
+
+    // tamaño máximo de una trama completa (prefijo de longitud incluido)
+    public static final int MAX_TRAMA = 2 + 0xFFFF;
+
+    // máximo de bolas en un lote para que la trama quepa en el u16 de longitud
+    public static final int MAX_BOLAS_LOTE = (0xFFFF - 3) / BOLA_BYTES;
+
+    private MsgCodec() {}
+
+    /** Buffer de trabajo para leer de un stream (uno por hilo lector). */
+    public static ByteBuffer newBuffer() {
+        return ByteBuffer.allocate(MAX_TRAMA);
+    }
+
+    // ==========================
+    // ESCRITURA (el que llama se asegura de que cabe)
+    // ==========================
+
+    /** Bytes de la trama con n bolas (una sola va como header 0, más como lote). */
+    public static int tamanoBolas(int n) {
+        return (n == 1) ? 3 + BOLA_BYTES : 5 + n * BOLA_BYTES;
+    }
+
+    /** Bolas [desde, hasta) del lote en una trama (como mucho MAX_BOLAS_LOTE). */
+    public static void putBolas(ByteBuffer buf, LoteBolas lote, int desde, int hasta) {
+        int n = hasta - desde;
+        if (n == 1) {
+            buf.putShort((short) (1 + BOLA_BYTES));
+            buf.put((byte) MsgDTO.BOLA);
+        } else {
+            buf.putShort((short) (3 + n * BOLA_BYTES));
+            buf.put((byte) MsgDTO.BOLAS);
+            buf.putShort((short) n);
+        }
+
+        for (int i = desde; i < hasta; i++) {
+            buf.putFloat(lote.getPosicionY(i));
+            buf.putFloat(lote.getRadio(i));
+            buf.putFloat(lote.getVelocidadX(i));
+            buf.putFloat(lote.getVelocidadY(i));
+        }
+    }
+
+    public static void putSprite(ByteBuffer buf, float posicionY, float velocidadX, float velocidadY) {
+        buf.putShort((short) (1 + SPRITE_BYTES));
+        buf.put((byte) MsgDTO.SPRITE);
+        buf.putFloat(posicionY);
+        buf.putFloat(velocidadX);
+        buf.putFloat(velocidadY);
+    }
+
+    /** Ping con hueco para t0 (lo rellena sellar justo antes de escribir). */
+    public static void putPing(ByteBuffer buf) {
+        buf.putShort((short) (1 + PING_BYTES));
+        buf.put((byte) MsgDTO.PING);
+        buf.putLong(0);
+    }
+
+    /** Pong con hueco para t2 (lo rellena sellar justo antes de escribir). */
+    public static void putPong(ByteBuffer buf, long t0, long t1) {
+        buf.putShort((short) (1 + PONG_BYTES));
+        buf.put((byte) MsgDTO.PONG);
+        buf.putLong(t0);
+        buf.putLong(t1);
+        buf.putLong(0);
+    }
+
+    /** Trama sin payload (ping/pong sin medidas, HELLO_BIN, BIN_ON). */
+    public static void putVacia(ByteBuffer buf, int header) {
+        buf.putShort((short) 1);
+        buf.put((byte) header);
+    }
+
+    /**
+     * Pone t0 a los pings y t2 a los pongs de buf (modo lectura, tramas completas),
+     * justo antes de escribirlas: así el RTT no incluye el tiempo en cola.
+     */
+    public static void sellar(ByteBuffer buf) {
+        long ahora = -1;
+        int fin = buf.limit();
+
+        for (int p = buf.position(); p + 3 <= fin; ) {
+            int len = buf.getShort(p) & 0xFFFF;
+            int header = buf.get(p + 2) & 0xFF;
+
+            if (header == MsgDTO.PING && len == 1 + PING_BYTES) {
+                if (ahora < 0) ahora = Reloj.micros();
+                buf.putLong(p + 3, ahora);
+            } else if (header == MsgDTO.PONG && len == 1 + PONG_BYTES && buf.getLong(p + 3) != 0) {
+                if (ahora < 0) ahora = Reloj.micros();
+                buf.putLong(p + 3 + 16, ahora);
+            }
+            p += 2 + len;
+        }
+    }
+
+    // ==========================
+    // LECTURA
+    // ==========================
+
+    /** True si buf (en modo lectura) tiene al menos una trama completa. */
+    public static boolean tramaCompleta(ByteBuffer buf) {
+        if (buf.remaining() < 2) return false;
+        int len = buf.getShort(buf.position()) & 0xFFFF;
+        return buf.remaining() >= 2 + len;
+    }
+
+    /**
+     * Lee una trama completa de buf (comprobar antes con tramaCompleta) y se la da al receptor.
+     * Las bolas se dejan en lote (se vacía antes). Un header desconocido se salta.
+     */
+    public static void leer(ByteBuffer buf, LoteBolas lote, Receptor r) throws IOException {
+        int len = buf.getShort() & 0xFFFF;
+        if (len < 1) throw new IOException("Trama vacía");
+
+        int fin = buf.position() + len;
+        int header = buf.get() & 0xFF;
+        int payloadLen = len - 1;
+
+        switch (header) {
+
+            case MsgDTO.BOLA:
+                checkLen(header, payloadLen, BOLA_BYTES);
+                lote.clear();
+                getBola(buf, lote);
+                r.bolas(lote);
+                break;
+
+            case MsgDTO.BOLAS: {
+                if (payloadLen < 2) throw new IOException("Longitud inválida para header " + header + ": " + payloadLen);
+                int n = buf.getShort() & 0xFFFF;
+                checkLen(header, payloadLen, 2 + n * BOLA_BYTES);
+
+                lote.clear();
+                for (int i = 0; i < n; i++) getBola(buf, lote);
+                r.bolas(lote);
+                break;
+            }
+
+            case MsgDTO.SPRITE: {
+                checkLen(header, payloadLen, SPRITE_BYTES);
+                float posicionY = buf.getFloat();
+                float velocidadX = buf.getFloat();
+                float velocidadY = buf.getFloat();
+                r.sprite(posicionY, velocidadX, velocidadY);
+                break;
+            }
+
+            case MsgDTO.PING: {
+                long t0 = (payloadLen == PING_BYTES) ? buf.getLong() : 0;
+                buf.position(fin);
+                r.ping(t0);
+                break;
+            }
+
+            case MsgDTO.PONG: {
+                long t0 = 0, t1 = 0, t2 = 0;
+                if (payloadLen == PONG_BYTES) {
+                    t0 = buf.getLong();
+                    t1 = buf.getLong();
+                    t2 = buf.getLong();
+                }
+                buf.position(fin);
+                r.pong(t0, t1, t2);
+                break;
+            }
+
+            case MsgDTO.HELLO_BIN:
+            case MsgDTO.BIN_ON:
+                buf.position(fin);
+                r.control(header);
+                break;
+
+            default:
+                buf.position(fin);
+        }
+    }
+
+    /** Saca una trama completa de un stream a scratch, lista para leer(scratch...) (Channel bloqueante). */
+    public static ByteBuffer leerTrama(DataInputStream in, ByteBuffer scratch) throws IOException {
+        int len = in.readUnsignedShort();
+
+        scratch.clear();
+        scratch.putShort((short) len);
+        in.readFully(scratch.array(), 2, len);
+        scratch.position(0).limit(2 + len);
+        return scratch;
+    }
+
+    // ==========================
+    // HELPERS
+    // ==========================
+
+    private static void getBola(ByteBuffer buf, LoteBolas lote) {
+        float posicionY = buf.getFloat();
+        float radio = buf.getFloat();
+        float velocidadX = buf.getFloat();
+        float velocidadY = buf.getFloat();
+        lote.add(posicionY, radio, velocidadX, velocidadY);
+    }
+
+    private static void checkLen(int header, int actual, int expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Longitud inválida para header " + header + ": " + actual);
+        }
+    }
+}
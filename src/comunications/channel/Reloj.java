@@ -0,0 +1,18 @@
+package comunications.channel;
+
+/**
+ * Reloj:
+ * Microsegundos de reloj de pared con la resolución de nanoTime.
+ * (currentTimeMillis solo da ms; nanoTime no se puede comparar entre máquinas)
+ */
+public final class Reloj {
+
+    private static final long BASE_MICROS = System.currentTimeMillis() * 1_000L;
+    private static final long BASE_NANOS = System.nanoTime();
+
+    private Reloj() {}
+
+    public static long micros() {
+        return BASE_MICROS + (System.nanoTime() - BASE_NANOS) / 1_000L;
+    }
+}
@@ -1,68 +1,101 @@
 package comunications.connectors;
 
+import comunications.Anillo;
+import comunications.Backoff;
 import comunications.Controller2;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.util.Objects;
 
+/**
+ * CC:
+ * Mantiene la conexión de SALIDA hacia el siguiente peer vivo del anillo.
+ * - Si no hay salida: prueba sucesor 1, 2, 3... y se queda con el primero que conteste.
+ * - Si la salida no es el vecino inmediato: cada cierto tiempo prueba los más cercanos
+ *   (así el anillo se recompone cuando un peer vuelve o entra).
+ * - Con la salida al vecino inmediato no hace nada: espera a que Controller2 avise de que ha caído.
+ * - Los reintentos usan Backoff (exponencial con jitter), no un intervalo fijo.
+ */
 public class CC implements Runnable {
 
+    private static final int CONNECT_TIMEOUT = 1_000;
+
     private final Controller2 comController;
-    private final int mainPort, auxPort;
-    private final String HOST;
+    private final Anillo anillo;
+
+    // reintentos sin salida / sondeo de peers más cercanos que la salida actual
+    private final Backoff reintento = new Backoff(250, 5_000);
+    private final Backoff cercanos = new Backoff(1_000, 10_000);
 
-    public CC(Controller2 comController, int mainPort, int auxPort, String ip) {
+    public CC(Controller2 comController, Anillo anillo) {
         this.comController = comController;
-        this.mainPort = mainPort;
-        this.auxPort = auxPort;
-        this.HOST = ip;
+        this.anillo = anillo;
     }
 
     @Override
     public void run() {
-        while (true) {
-            if (!comController.isValid()) {
-                Socket socket = null;
+        int yo = anillo.getIndiceLocal(); // espera a que SC sepa quién soy
+        int n = anillo.size();
 
-                if (Objects.equals(HOST, "localhost") || Objects.equals(HOST, "127.0.0.1")) {
-                    int port = comController.getAvailablePort();
-                    try {
-                        socket = new Socket("127.0.0.1", port);
-                        System.out.println("[ClientConnector] Conectado a localhost:" + port);
-                    } catch (IOException e) {
-                        System.out.println("[ClientConnector] Error localhost: " + e.getMessage());
-                        sleep(500);
-                        continue;
-                    }
+        if (n < 2) {
+            System.out.println("[ClientConnector] Anillo de un solo peer: no hay a quién conectar");
+            return;
+        }
 
-                } else {
-                    try {
-                        socket = new Socket(HOST, mainPort);
-                        System.out.println("[ClientConnector] Conectado a " + HOST + ":" + mainPort);
-                    } catch (IOException e1) {
-                        try {
-                            socket = new Socket(HOST, auxPort);
-                            System.out.println("[ClientConnector] Conectado a " + HOST + ":" + auxPort);
-                        } catch (IOException e2) {
-                            System.out.println("[ClientConnector] No conecta. Reintento...");
-                            sleep(1000);
-                            continue;
-                        }
+        try {
+            while (true) {
+                if (!comController.isValid()) {
+                    if (conectarPrimerVivo(1, n - 1)) {
+                        reintento.reset();
+                        cercanos.reset();
+                    } else {
+                        long ms = reintento.siguiente();
+                        System.out.println("[ClientConnector] Ningún peer del anillo contesta. Reintento en " + ms + "ms");
+                        Thread.sleep(ms);
                     }
+                    continue;
                 }
 
-                if (socket != null && socket.isConnected()) {
-                    comController.setSocket(socket);
+                int salto = comController.getSaltoSalida();
+                if (salto <= 1) {
+                    // ✅ salida al vecino inmediato: no hay nada mejor, duermo hasta que caiga
+                    comController.esperarSalidaCaida(0);
+                    continue;
                 }
 
-            } else {
-                sleep(1000);
+                // salida lejana: de vez en cuando (cada vez menos) pruebo si ha vuelto alguien más cerca
+                comController.esperarSalidaCaida(cercanos.siguiente());
+                if (comController.isValid() && conectarPrimerVivo(1, salto - 1)) cercanos.reset();
+            }
+        } catch (InterruptedException e) {
+            System.out.println("[ClientConnector] Interrumpido");
+        }
+    }
+
+    private boolean conectarPrimerVivo(int desde, int hasta) {
+        for (int salto = desde; salto <= hasta; salto++) {
+            Anillo.Nodo nodo = anillo.sucesor(salto);
+            if (nodo == anillo.getLocal()) continue;
+
+            Socket socket = conectar(nodo);
+            if (socket != null) {
+                System.out.println("[ClientConnector] Conectado a " + nodo + " (salto " + salto + ")");
+                comController.setSalida(socket, salto);
+                return true;
             }
         }
+        return false;
     }
 
-    private void sleep(long ms) {
-        try { Thread.sleep(ms); } catch (InterruptedException ignored) {}
+    private Socket conectar(Anillo.Nodo nodo) {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(nodo.host, nodo.port), CONNECT_TIMEOUT);
+            return socket;
+        } catch (IOException e) {
+            try { socket.close(); } catch (IOException ignored) {}
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
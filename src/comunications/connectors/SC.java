@@ -1,6 +1,9 @@
 package comunications.connectors;
 
+import comunications.Anillo;
+import comunications.Backoff;
 import comunications.Controller2;
+import comunications.Hilos;
 
 import java.io.IOException;
 import java.net.ServerSocket;
@@ -9,55 +12,75 @@ import java.net.Socket;
 public class SC implements Runnable {
 
     private final Controller2 comController;
+    private final Anillo anillo;
     private ServerSocket serverSocket;
 
-    private final int mainPort, auxPort;
-    private int actualPort;
+    private volatile int actualPort;
 
-    public SC(Controller2 comController, int mainPort, int auxPort) {
+    private final Backoff reintento = new Backoff(100, 5_000);
+
+    public SC(Controller2 comController, Anillo anillo) {
         this.comController = comController;
-        this.mainPort = mainPort;
-        this.auxPort = auxPort;
+        this.anillo = anillo;
     }
 
     @Override
     public void run() {
         while (true) {
             if (serverSocket == null) conectarPuerto();
+            if (serverSocket == null) { // no se pudo volver a abrir: se reintenta
+                sleep(reintento.siguiente());
+                continue;
+            }
 
             try {
                 Socket socket = serverSocket.accept();
 
-                // si ya hay canal, cierro este intento
-                if (comController.isValid()) {
-                    try { socket.close(); } catch (IOException ignored) {}
-                    continue;
-                }
-
-                comController.setSocket(socket);
+                // cada peer que me tiene como sucesor abre su propia conexión de entrada;
+                // el handshake (cabecera del ObjectInputStream) va en otro hilo para no frenar el accept
+                Hilos.arrancar(() -> comController.addEntrada(socket), "ChannelHandshake");
+                reintento.reset();
 
             } catch (IOException e) {
                 System.out.println("[ServerConnector] Error: " + e.getMessage());
                 try { if (serverSocket != null) serverSocket.close(); } catch (IOException ignored) {}
                 serverSocket = null;
-                sleep(300);
+                sleep(reintento.siguiente());
             }
         }
     }
 
+    /**
+     * La primera vez abro el puerto de la primera entrada local del anillo que esté libre:
+     * esa entrada es mi posición en el anillo.
+     * Después (tras un error) solo se vuelve a abrir ese mismo puerto: la posición no cambia.
+     */
     private void conectarPuerto() {
-        try {
-            serverSocket = new ServerSocket(mainPort);
-            actualPort = mainPort;
-        } catch (IOException e) {
+        if (actualPort != 0) {
+            try {
+                serverSocket = new ServerSocket(actualPort);
+                System.out.println("[ServerConnector] Escuchando de nuevo en " + actualPort);
+            } catch (IOException e) {
+                System.out.println("[ServerConnector] No puedo reabrir " + actualPort + ": " + e.getMessage());
+            }
+            return;
+        }
+
+        for (int i = 0; i < anillo.size(); i++) {
+            if (!anillo.esLocal(i)) continue;
+
+            int port = anillo.get(i).port;
             try {
-                serverSocket = new ServerSocket(auxPort);
-                actualPort = auxPort;
-            } catch (IOException ex) {
-                throw new RuntimeException("No puedo abrir puertos " + mainPort + " ni " + auxPort, ex);
+                serverSocket = new ServerSocket(port);
+                actualPort = port;
+                anillo.setIndiceLocal(i);
+                System.out.println("[ServerConnector] Escuchando en " + actualPort + " (posición " + i + " del anillo)");
+                return;
+            } catch (IOException ignored) {
+                // ocupado: otro peer de esta máquina ya tiene esta posición
             }
         }
-        System.out.println("[ServerConnector] Escuchando en " + actualPort);
+        throw new RuntimeException("No puedo abrir ningún puerto local del anillo");
     }
 
     public boolean isConected() { return serverSocket != null; }
@@ -66,4 +89,4 @@ public class SC implements Runnable {
     private void sleep(long ms) {
         try { Thread.sleep(ms); } catch (InterruptedException ignored) {}
     }
-}
\ No newline at end of file
+}
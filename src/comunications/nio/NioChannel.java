@@ -0,0 +1,229 @@
+package comunications.nio;
+
+import comunications.Controller2;
+import comunications.channel.ColaTramas;
+import comunications.channel.HealthChannel;
+import comunications.channel.Latencia;
+import comunications.channel.MsgCodec;
+import comunications.channel.Reloj;
+import model.dto.LoteBolas;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * NioChannel:
+ * Una conexión del transporte NIO (equivale a Channel + ChannelReader + ChannelWriter).
+ * - Lee y escribe desde el hilo del NioLoop con ByteBuffers directos.
+ * - Habla MsgCodec desde el primer byte (precedido por un MAGIC), sin serialización Java:
+ *   los dos peers tienen que usar el transporte NIO.
+ * - Los demás hilos solo codifican en la ColaTramas (acotada, igual que ChannelWriter);
+ *   el loop escribe el buffer entero tal cual. Sin objetos por mensaje.
+ * - La vida de la conexión la vigila un HealthChannel, igual que en Channel.
+ */
+public class NioChannel implements NioHandler, HealthChannel.Vigilado, MsgCodec.Receptor {
+
+    static final int MAGIC = 0x424E494F; // "BNIO"
+
+    private final NioTransport transport;
+    private final Controller2 com;
+    private final NioLoop loop;
+    private final SocketChannel ch;
+    private SelectionKey key;
+    private volatile boolean abierto = false;
+
+    private final ByteBuffer readBuf = ByteBuffer.allocateDirect(2 * MsgCodec.MAX_TRAMA);
+    private final ByteBuffer magic = ByteBuffer.allocateDirect(4);
+    private boolean magicLeido = false;
+    private final LoteBolas lote = new LoteBolas(); // bolas leídas (solo hilo del loop)
+    private long recibido;                           // cuándo llegó lo que estoy leyendo
+
+    private final ColaTramas cola = new ColaTramas(true, "NioChannel", this::pedirEscritura);
+    private ByteBuffer enCurso; // buffer de la cola a medio escribir (socket lleno)
+    private final AtomicBoolean escrituraPendiente = new AtomicBoolean();
+    private final Runnable tareaEscribir = () -> {
+        try {
+            if (abierto) escribir();
+        } catch (IOException e) {
+            onError(e);
+        }
+    };
+
+    private final Latencia latencia = new Latencia();
+    private final HealthChannel healthChannel = new HealthChannel(this);
+
+    NioChannel(NioTransport transport, Controller2 com, NioLoop loop, SocketChannel ch) {
+        this.transport = transport;
+        this.com = com;
+        this.loop = loop;
+        this.ch = ch;
+    }
+
+    /** Registra el canal en el selector y manda el MAGIC. Hilo del loop. */
+    void abrir(SelectionKey existente) throws IOException {
+        ch.configureBlocking(false);
+        ch.socket().setTcpNoDelay(true);
+
+        if (existente != null) {
+            key = existente;
+            key.attach(this);
+            key.interestOps(SelectionKey.OP_READ);
+        } else {
+            key = loop.register(ch, SelectionKey.OP_READ, this);
+        }
+
+        abierto = true;
+        healthChannel.start();
+        magic.putInt(MAGIC).flip();
+        escribir();
+    }
+
+    @Override
+    public boolean isValid() {
+        return abierto && ch.isConnected();
+    }
+
+    /** RTT, jitter y offset de reloj medidos con el ping/pong de esta conexión. */
+    @Override
+    public Latencia getLatencia() { return latencia; }
+
+    // ==========================
+    // ENVÍO (cualquier hilo: se codifica en la cola)
+    // ==========================
+    @Override
+    public void comprobarConexion() {
+        if (abierto) cola.ping();
+    }
+
+    void lanzarBolas(LoteBolas l, int desde, int hasta) {
+        if (abierto && hasta > desde) cola.bolas(l, desde, hasta);
+    }
+
+    void lanzarSprite(float posicionY, float velocidadX, float velocidadY) {
+        if (abierto) cola.sprite(posicionY, velocidadX, velocidadY);
+    }
+
+    void lanzarTrama(ByteBuffer trama) {
+        if (abierto) cola.trama(trama);
+    }
+
+    // la cola ha pasado de vacía a tener algo: un solo aviso al loop aunque encolen muchos a la vez
+    private void pedirEscritura() {
+        if (abierto && escrituraPendiente.compareAndSet(false, true)) {
+            loop.execute(tareaEscribir);
+        }
+    }
+
+    private void escribir() throws IOException {
+        escrituraPendiente.set(false);
+
+        if (magic.hasRemaining()) ch.write(magic);
+
+        while (!magic.hasRemaining()) {
+            if (enCurso == null) {
+                enCurso = cola.tomar();
+                if (enCurso == null) break;   // todo escrito
+            }
+
+            ch.write(enCurso);
+            if (enCurso.hasRemaining()) break; // socket lleno: espero OP_WRITE
+
+            cola.devolver(enCurso);
+            enCurso = null;
+        }
+
+        boolean quedanDatos = magic.hasRemaining() || enCurso != null;
+        int ops = key.interestOps();
+        key.interestOps(quedanDatos ? (ops | SelectionKey.OP_WRITE) : (ops & ~SelectionKey.OP_WRITE));
+    }
+
+    // ==========================
+    // LECTURA (hilo del loop)
+    // ==========================
+    private void leer() throws IOException {
+        int n = ch.read(readBuf);
+        if (n < 0) throw new EOFException("Conexión cerrada por el otro extremo");
+        if (n == 0) return;
+
+        healthChannel.notifyHealthy(); // cualquier byte recibido vale como señal de vida
+        recibido = Reloj.micros();
+        readBuf.flip();
+        try {
+            if (!magicLeido) {
+                if (readBuf.remaining() < 4) return;
+                if (readBuf.getInt() != MAGIC) throw new IOException("El otro peer no usa el transporte NIO");
+                magicLeido = true;
+            }
+
+            while (MsgCodec.tramaCompleta(readBuf)) {
+                MsgCodec.leer(readBuf, lote, this);
+            }
+        } finally {
+            readBuf.compact();
+        }
+    }
+
+    @Override
+    public void bolas(LoteBolas l) {
+        com.introducirBolas(l);
+    }
+
+    @Override
+    public void sprite(float posicionY, float velocidadX, float velocidadY) {
+        com.introducirSprite(posicionY, velocidadX, velocidadY);
+    }
+
+    @Override
+    public void ping(long t0) {
+        if (abierto) cola.pong(t0, recibido);
+    }
+
+    @Override
+    public void pong(long t0, long t1, long t2) {
+        latencia.registrarPong(t0, t1, t2, recibido);
+    }
+
+    @Override
+    public void control(int header) {
+        System.out.println("[NioChannel] Header no esperado: " + header);
+    }
+
+    // ==========================
+    // SELECTOR
+    // ==========================
+    @Override
+    public void onReady(SelectionKey k) throws IOException {
+        if (k.isReadable()) leer();
+        if (k.isValid() && k.isWritable()) escribir();
+    }
+
+    @Override
+    public void onError(IOException e) {
+        System.out.println("[NioChannel] " + e.getMessage());
+        cerrar();
+    }
+
+    // ==========================
+    // CIERRE
+    // ==========================
+    @Override
+    public void close() {
+        if (loop.enLoop()) cerrar();
+        else loop.execute(this::cerrar);
+    }
+
+    private void cerrar() {
+        if (!abierto && !ch.isOpen()) return;
+
+        abierto = false;
+        healthChannel.stop();
+        if (key != null) key.cancel();
+        try { ch.close(); } catch (IOException ignored) {}
+
+        transport.onCanalCaido(this);
+    }
+}
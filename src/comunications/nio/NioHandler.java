@@ -0,0 +1,17 @@
+package comunications.nio;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+
+/**
+ * Lo que va como attachment de cada SelectionKey del NioLoop
+ * (servidor que acepta, conexión a medio abrir o canal ya abierto).
+ */
+interface NioHandler {
+
+    /** La key está lista (accept, connect, read o write). Siempre en el hilo del loop. */
+    void onReady(SelectionKey key) throws IOException;
+
+    /** onReady lanzó una excepción: cerrar y limpiar. */
+    void onError(IOException e);
+}
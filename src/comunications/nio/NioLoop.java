@@ -0,0 +1,155 @@
+package comunications.nio;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * NioLoop:
+ * Un único hilo por proceso con un Selector para TODAS las conexiones NIO:
+ * accept, connect, read y write, más los temporizadores (reintentos, pings).
+ *
+ * - execute(): mete una tarea desde cualquier hilo (despierta al selector).
+ * - schedule(): igual pero dentro de X ms.
+ * - Todo lo que toca keys/sockets se hace en el hilo del loop.
+ */
+public final class NioLoop implements Runnable {
+
+    private static NioLoop instance;
+
+    public static synchronized NioLoop get() {
+        if (instance == null) {
+            try {
+                instance = new NioLoop();
+            } catch (IOException e) {
+                throw new RuntimeException("No puedo abrir el Selector", e);
+            }
+            Thread t = new Thread(instance, "NioLoop");
+            t.setDaemon(true);
+            instance.hilo = t;
+            t.start();
+        }
+        return instance;
+    }
+
+    private final Selector selector;
+    private final Queue<Runnable> tareas = new ConcurrentLinkedQueue<>();
+    private final PriorityQueue<Temporizador> temporizadores = new PriorityQueue<>(); // solo hilo del loop
+    private volatile Thread hilo;
+    private long seq = 0;
+
+    private NioLoop() throws IOException {
+        this.selector = Selector.open();
+    }
+
+    public void execute(Runnable tarea) {
+        tareas.add(tarea);
+        if (Thread.currentThread() != hilo) selector.wakeup();
+    }
+
+    public void schedule(Runnable tarea, long delayMs) {
+        long vence = System.nanoTime() + delayMs * 1_000_000L;
+        execute(() -> temporizadores.add(new Temporizador(vence, seq++, tarea)));
+    }
+
+    boolean enLoop() {
+        return Thread.currentThread() == hilo;
+    }
+
+    SelectionKey register(SelectableChannel ch, int ops, NioHandler handler) throws IOException {
+        return ch.register(selector, ops, handler);
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                long espera = msHastaSiguienteTemporizador();
+                if (!tareas.isEmpty() || espera == 0) selector.selectNow();
+                else selector.select(espera < 0 ? 0 : espera);
+
+                procesarKeys();
+                ejecutarTareas();
+                ejecutarTemporizadores();
+
+            } catch (Exception e) {
+                System.out.println("[NioLoop] Error inesperado: " + e.getMessage());
+            }
+        }
+    }
+
+    private void procesarKeys() {
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+            SelectionKey key = it.next();
+            it.remove();
+
+            NioHandler handler = (NioHandler) key.attachment();
+            if (!key.isValid() || handler == null) continue;
+
+            try {
+                handler.onReady(key);
+            } catch (IOException e) {
+                handler.onError(e);
+            } catch (RuntimeException e) {
+                // p.ej. una trama mal formada: se cierra solo esa conexión, las demás siguen
+                handler.onError(new IOException("Error procesando: " + e, e));
+            }
+        }
+    }
+
+    private void ejecutarTareas() {
+        Runnable tarea;
+        while ((tarea = tareas.poll()) != null) {
+            ejecutar(tarea);
+        }
+    }
+
+    private void ejecutarTemporizadores() {
+        long now = System.nanoTime();
+        while (!temporizadores.isEmpty() && temporizadores.peek().vence - now <= 0) {
+            ejecutar(temporizadores.poll().tarea);
+        }
+    }
+
+    private void ejecutar(Runnable tarea) {
+        try {
+            tarea.run();
+        } catch (Exception e) {
+            System.out.println("[NioLoop] Error en tarea: " + e.getMessage());
+        }
+    }
+
+    // -1 = no hay temporizadores (esperar sin límite), 0 = ya hay uno vencido
+    private long msHastaSiguienteTemporizador() {
+        Temporizador t = temporizadores.peek();
+        if (t == null) return -1;
+
+        long ns = t.vence - System.nanoTime();
+        if (ns <= 0) return 0;
+        return Math.max(1, ns / 1_000_000L);
+    }
+
+    private static final class Temporizador implements Comparable<Temporizador> {
+        final long vence;
+        final long seq;
+        final Runnable tarea;
+
+        Temporizador(long vence, long seq, Runnable tarea) {
+            this.vence = vence;
+            this.seq = seq;
+            this.tarea = tarea;
+        }
+
+        @Override
+        public int compareTo(Temporizador o) {
+            int c = Long.compare(vence - o.vence, 0);
+            return (c != 0) ? c : Long.compare(seq, o.seq);
+        }
+    }
+}
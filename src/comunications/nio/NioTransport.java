@@ -0,0 +1,268 @@
+package comunications.nio;
+
+import comunications.Anillo;
+import comunications.Backoff;
+import comunications.Controller2;
+import comunications.channel.Latencia;
+import model.dto.LoteBolas;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * NioTransport:
+ * Alternativa NIO a SC + CC + Channel para un Controller2.
+ * Misma lógica de anillo que la versión bloqueante:
+ * - escucho en mi entrada del anillo y acepto una entrada por cada predecesor
+ * - mantengo UNA salida hacia el siguiente peer vivo (saltando los caídos)
+ * - si la salida no es el vecino inmediato, pruebo de vez en cuando los más cercanos
+ * - reintentos con Backoff (exponencial con jitter); con salida al vecino inmediato no hay timers
+ * Sin hilos propios: todo corre en el NioLoop, compartido por todas las conexiones del proceso.
+ */
+public class NioTransport {
+
+    private static final long CONNECT_TIMEOUT = 1_000;
+
+    private final Controller2 com;
+    private final Anillo anillo;
+    private final NioLoop loop = NioLoop.get();
+
+    private ServerSocketChannel server;
+
+    private volatile NioChannel salida;
+    private volatile int saltoSalida;
+    private final Set<NioChannel> entradas = ConcurrentHashMap.newKeySet();
+
+    // solo hilo del loop
+    private boolean conectando = false;
+    private boolean programado = false; // hay un conectar() pendiente en el loop
+    private final Backoff reintento = new Backoff(250, 5_000);  // sin salida
+    private final Backoff cercanos = new Backoff(1_000, 10_000); // salida lejana: ¿ha vuelto alguien más cerca?
+
+    public NioTransport(Controller2 com, Anillo anillo) {
+        this.com = com;
+        this.anillo = anillo;
+    }
+
+    public void start() {
+        loop.execute(this::escuchar);
+    }
+
+    public boolean isValid() {
+        NioChannel c = salida;
+        return c != null && c.isValid();
+    }
+
+    public int getSaltoSalida() { return saltoSalida; }
+
+    public Latencia getLatenciaSalida() {
+        NioChannel c = salida;
+        return (c != null) ? c.getLatencia() : null;
+    }
+
+    // ==========================
+    // ENVÍO (siempre por la salida)
+    // ==========================
+    public void lanzarBolas(LoteBolas lote, int desde, int hasta) {
+        NioChannel c = salida;
+        if (c != null && c.isValid()) c.lanzarBolas(lote, desde, hasta);
+    }
+
+    public void lanzarSprite(float posicionY, float velocidadX, float velocidadY) {
+        NioChannel c = salida;
+        if (c != null && c.isValid()) c.lanzarSprite(posicionY, velocidadX, velocidadY);
+    }
+
+    public void lanzarTrama(ByteBuffer trama) {
+        NioChannel c = salida;
+        if (c != null && c.isValid()) c.lanzarTrama(trama);
+    }
+
+    // ==========================
+    // SERVIDOR (equivale a SC)
+    // ==========================
+    private void escuchar() {
+        for (int i = 0; i < anillo.size(); i++) {
+            if (!anillo.esLocal(i)) continue;
+
+            int port = anillo.get(i).port;
+            try {
+                server = abrirServidor(port);
+            } catch (IOException e) {
+                continue; // ocupado: otro peer de esta máquina ya tiene esta posición
+            }
+
+            anillo.setIndiceLocal(i);
+            System.out.println("[NioTransport] Escuchando en " + port + " (posición " + i + " del anillo)");
+            conectar();
+            return;
+        }
+
+        System.out.println("[NioTransport] No puedo abrir ningún puerto local del anillo");
+        loop.schedule(this::escuchar, reintento.siguiente());
+    }
+
+    private ServerSocketChannel abrirServidor(int port) throws IOException {
+        ServerSocketChannel ssc = ServerSocketChannel.open();
+        try {
+            ssc.bind(new InetSocketAddress(port));
+            ssc.configureBlocking(false);
+            loop.register(ssc, SelectionKey.OP_ACCEPT, new Aceptador(ssc));
+            return ssc;
+        } catch (IOException e) {
+            ssc.close();
+            throw e;
+        }
+    }
+
+    private class Aceptador implements NioHandler {
+        private final ServerSocketChannel ssc;
+
+        Aceptador(ServerSocketChannel ssc) { this.ssc = ssc; }
+
+        @Override
+        public void onReady(SelectionKey key) throws IOException {
+            SocketChannel sc;
+            while ((sc = ssc.accept()) != null) {
+                NioChannel c = new NioChannel(NioTransport.this, com, loop, sc);
+                entradas.add(c);
+                c.abrir(null);
+            }
+        }
+
+        @Override
+        public void onError(IOException e) {
+            System.out.println("[NioTransport] Error aceptando: " + e.getMessage());
+        }
+    }
+
+    // ==========================
+    // CLIENTE (equivale a CC)
+    // ==========================
+
+    /** Busca salida: sucesor 1, 2, 3... (o solo los más cercanos que la salida actual). */
+    private void conectar() {
+        if (conectando || anillo.size() < 2) return;
+
+        int hasta = isValid() ? saltoSalida - 1 : anillo.size() - 1;
+        if (hasta < 1) return;
+
+        conectando = true;
+        intentar(1, hasta);
+    }
+
+    private void intentar(int salto, int hasta) {
+        if (salto > hasta) {
+            conectando = false;
+            if (!isValid()) {
+                long ms = reintento.siguiente();
+                System.out.println("[NioTransport] Ningún peer del anillo contesta. Reintento en " + ms + "ms");
+                programar(ms);
+            } else {
+                programar(cercanos.siguiente());
+            }
+            return;
+        }
+
+        Anillo.Nodo nodo = anillo.sucesor(salto);
+        SocketChannel sc = null;
+        try {
+            sc = SocketChannel.open();
+            sc.configureBlocking(false);
+
+            if (sc.connect(new InetSocketAddress(nodo.host, nodo.port))) {
+                conectado(sc, null, salto);
+            } else {
+                Conector conector = new Conector(sc, salto, hasta);
+                loop.register(sc, SelectionKey.OP_CONNECT, conector);
+                loop.schedule(conector::timeout, CONNECT_TIMEOUT);
+            }
+        } catch (IOException e) {
+            try { if (sc != null) sc.close(); } catch (IOException ignored) {}
+            intentar(salto + 1, hasta);
+        }
+    }
+
+    private class Conector implements NioHandler {
+        private final SocketChannel sc;
+        private final int salto, hasta;
+        private boolean terminado = false;
+
+        Conector(SocketChannel sc, int salto, int hasta) {
+            this.sc = sc;
+            this.salto = salto;
+            this.hasta = hasta;
+        }
+
+        @Override
+        public void onReady(SelectionKey key) throws IOException {
+            if (key.isConnectable() && sc.finishConnect()) {
+                terminado = true;
+                conectado(sc, key, salto);
+            }
+        }
+
+        @Override
+        public void onError(IOException e) {
+            if (terminado) return;
+            terminado = true;
+
+            try { sc.close(); } catch (IOException ignored) {}
+            intentar(salto + 1, hasta);
+        }
+
+        // un host caído de la LAN no siempre contesta: no espero al timeout de TCP
+        void timeout() {
+            if (!terminado) onError(new IOException("timeout conectando"));
+        }
+    }
+
+    private void conectado(SocketChannel sc, SelectionKey key, int salto) throws IOException {
+        conectando = false;
+        System.out.println("[NioTransport] Conectado a " + anillo.sucesor(salto) + " (salto " + salto + ")");
+
+        NioChannel nuevo = new NioChannel(this, com, loop, sc);
+        NioChannel anterior = salida;
+        salida = nuevo;
+        saltoSalida = salto;
+        nuevo.abrir(key);
+        com.onNuevaSalida(salto);
+
+        // si me he acercado en el anillo, suelto la salida antigua
+        if (anterior != null) anterior.close();
+
+        reintento.reset();
+        cercanos.reset();
+        if (salto > 1) programar(cercanos.siguiente());
+    }
+
+    /** Un solo conectar() pendiente como mucho (no se acumulan timers). */
+    private void programar(long ms) {
+        if (programado) return;
+        programado = true;
+        loop.schedule(() -> {
+            programado = false;
+            conectar();
+        }, ms);
+    }
+
+    // ==========================
+    // CANALES
+    // ==========================
+    void onCanalCaido(NioChannel c) {
+        if (c == salida) {
+            salida = null;
+            System.out.println("[NioTransport] Salida caída -> busco el siguiente peer vivo");
+            com.onSalidaCaida();
+            conectar(); // ✅ al momento; si falla, ya entra el backoff
+        } else {
+            entradas.remove(c);
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package comunications.udp;
+
+import comunications.Controller2;
+import comunications.channel.MsgCodec;
+import model.dto.LoteBolas;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * UdpHandoff:
+ * Transporte UDP opcional para los traspasos (bola 0, lote 4, sprite 3) hacia la salida del anillo.
+ * Cada datagrama es independiente: si se pierde uno, los demás no esperan (sin head-of-line de TCP).
+ *
+ * Datagrama: [u8 tipo][i32 epoch][i32 seq][trama MsgCodec]
+ * - DATA      : traspaso fiable -> el otro lado contesta ACK y descarta duplicados
+ * - ACK       : confirma (epoch, seq)
+ * - PROBE     : sondeo sin fiabilidad para saber si el UDP llega (se contesta PROBE_ACK)
+ *
+ * Fiabilidad selectiva: solo los headers de traspaso se retransmiten (RTO con backoff).
+ * Si el UDP no contesta a los sondeos, o un traspaso agota los reintentos, se usa el TCP de siempre.
+ * Se activa con -Dbolas.udp=true y escucha en el mismo número de puerto que el TCP.
+ *
+ * Sin objetos por datagrama: los traspasos sin confirmar viven en VENTANA huecos fijos
+ * (buffer + DatagramPacket cada uno) y la lectura reutiliza paquete, buffer y LoteBolas.
+ */
+public class UdpHandoff implements MsgCodec.Receptor {
+
+    public static final boolean ACTIVO = Boolean.getBoolean("bolas.udp");
+
+    private static final byte DATA = 1;
+    private static final byte ACK = 2;
+    private static final byte PROBE = 3;
+    private static final byte PROBE_ACK = 4;
+
+    private static final int CABECERA = 9;
+    private static final int MAX_DATAGRAMA = 1200; // cabe en cualquier MTU razonable
+    public static final int MAX_BOLAS_DATAGRAMA = (MAX_DATAGRAMA - CABECERA - 5) / 16;
+
+    private static final int VENTANA = 256; // traspasos sin confirmar como mucho (potencia de 2)
+
+    private static final long TICK_MS = 10;
+    private static final long PROBE_INTERVAL = 1_000;
+    private static final long PROBE_VALIDEZ = 3_000;  // sin PROBE_ACK en 3s -> vuelvo a TCP
+    private static final long RTO_INICIAL = 40;
+    private static final long RTO_MAX = 1_000;
+    private static final int MAX_INTENTOS = 6;
+
+    private final Controller2 com;
+    private final DatagramSocket socket;
+    private final ScheduledExecutorService timer;
+
+    private final int epoch = new Random().nextInt(); // distingue reinicios de este peer
+
+    // traspasos sin confirmar: hueco = seq % VENTANA (protegidos por lock)
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Pendiente[] pendientes = new Pendiente[VENTANA];
+    private int seqs = 0;
+    private int base = 1; // el seq más antiguo que puede seguir sin confirmar (ver reservar)
+
+    // solo UdpReader
+    private Ventana[] ventanas = new Ventana[0];
+    private final LoteBolas lote = new LoteBolas();
+    private final Control controlLector = new Control();
+
+    // solo UdpTimer
+    private final Control controlTimer = new Control();
+
+    private volatile InetSocketAddress destino;
+    private volatile long ultimoProbeAck = 0;
+    private long ultimoProbe = 0;
+
+    private final AtomicLong retransmisiones = new AtomicLong();
+    private final AtomicLong alTcp = new AtomicLong();
+
+    public UdpHandoff(Controller2 com, int port) throws SocketException {
+        this.com = com;
+        this.socket = new DatagramSocket(port);
+        for (int i = 0; i < VENTANA; i++) pendientes[i] = new Pendiente();
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "UdpTimer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void start() {
+        Thread reader = new Thread(this::leer, "UdpReader");
+        reader.setDaemon(true);
+        reader.start();
+
+        timer.scheduleAtFixedRate(this::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+        System.out.println("[UdpHandoff] Escuchando en UDP " + socket.getLocalPort());
+    }
+
+    /** La salida del anillo ha cambiado (null = no hay salida). */
+    public void setDestino(InetSocketAddress nuevo) {
+        destino = nuevo;
+        ultimoProbeAck = 0; // hasta que el nuevo destino conteste, TCP
+        ultimoProbe = 0;
+    }
+
+    /** True si el destino actual contesta por UDP. */
+    public boolean disponible() {
+        return destino != null && System.currentTimeMillis() - ultimoProbeAck < PROBE_VALIDEZ;
+    }
+
+    public long getRetransmisiones() { return retransmisiones.get(); }
+    public long getEnviadosPorTcp() { return alTcp.get(); }
+
+    // ==========================
+    // ENVÍO
+    // ==========================
+
+    /**
+     * Manda bolas [desde, hasta) del lote (que quepan en un datagrama) como traspaso fiable.
+     * @return false si el UDP no está disponible (el que llama usa TCP)
+     */
+    public boolean enviarBolas(LoteBolas l, int desde, int hasta) {
+        lock.lock();
+        try {
+            Pendiente p = reservar(MsgCodec.tamanoBolas(hasta - desde));
+            if (p == null) return false;
+            MsgCodec.putBolas(p.buf, l, desde, hasta);
+            return mandarNuevo(p);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean enviarSprite(float posicionY, float velocidadX, float velocidadY) {
+        lock.lock();
+        try {
+            Pendiente p = reservar(MsgCodec.TAMANO_SPRITE);
+            if (p == null) return false;
+            MsgCodec.putSprite(p.buf, posicionY, velocidadX, velocidadY);
+            return mandarNuevo(p);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // hueco libre con la cabecera DATA ya escrita; null si no hay UDP o la ventana está llena
+    private Pendiente reservar(int bytesTrama) {
+        InetSocketAddress d = destino;
+        if (d == null || !disponible() || CABECERA + bytesTrama > MAX_DATAGRAMA) return null;
+
+        int seq = seqs + 1;
+        if (seq == 0) seq = 1; // 0 = hueco libre
+
+        // como mucho VENTANA seq entre el más antiguo sin confirmar y el nuevo: así el receptor
+        // siempre tiene en su ventana los que aún se pueden retransmitir (ver Ventana)
+        avanzarBase();
+        if (seq - base >= VENTANA) return null; // demasiados sin confirmar: este va por TCP (sin gastar seq)
+
+        Pendiente p = pendientes[seq & (VENTANA - 1)];
+        seqs = seq;
+        p.seq = seq;
+        p.destino = d;
+        p.intentos = 0;
+        p.rto = RTO_INICIAL;
+        p.buf.clear();
+        p.buf.put(DATA).putInt(epoch).putInt(seq);
+        return p;
+    }
+
+    // base pasa los seq que ya no esperan ACK (confirmados, enviados por TCP o que no llegaron a salir)
+    private void avanzarBase() {
+        while (base != seqs + 1 && (base == 0 || pendientes[base & (VENTANA - 1)].seq != base)) base++;
+    }
+
+    private boolean mandarNuevo(Pendiente p) {
+        p.packet.setData(p.datos, 0, p.buf.position());
+        p.packet.setSocketAddress(p.destino);
+        p.ultimoEnvio = System.currentTimeMillis();
+        try {
+            socket.send(p.packet);
+            return true;
+        } catch (IOException e) {
+            System.out.println("[UdpHandoff] Error enviando: " + e.getMessage());
+            p.seq = 0;
+            return false;
+        }
+    }
+
+    private void mandarControl(Control c, byte tipo, int epochDe, int seq, InetAddress addr, int port) {
+        c.buf.clear();
+        c.buf.put(tipo).putInt(epochDe).putInt(seq);
+        c.packet.setAddress(addr);
+        c.packet.setPort(port);
+        try {
+            socket.send(c.packet);
+        } catch (IOException e) {
+            System.out.println("[UdpHandoff] Error enviando control: " + e.getMessage());
+        }
+    }
+
+    // ==========================
+    // TIMER: retransmisiones y sondeos
+    // ==========================
+    private void tick() {
+        long now = System.currentTimeMillis();
+        InetSocketAddress d = destino;
+
+        lock.lock();
+        try {
+            for (Pendiente p : pendientes) {
+                if (p.seq == 0 || now - p.ultimoEnvio < p.rto) continue;
+
+                if (p.intentos >= MAX_INTENTOS || !p.destino.equals(d)) {
+                    // el UDP no llega (o la salida cambió): este traspaso va por TCP
+                    if (p.destino.equals(d)) ultimoProbeAck = 0;
+                    alTcp.incrementAndGet();
+                    p.trama.limit(p.buf.position()).position(CABECERA);
+                    com.lanzarPorTcp(p.trama);
+                    p.seq = 0;
+                    continue;
+                }
+
+                try {
+                    socket.send(p.packet);
+                } catch (IOException ex) {
+                    System.out.println("[UdpHandoff] Error reenviando: " + ex.getMessage());
+                }
+                p.intentos++;
+                p.ultimoEnvio = now;
+                p.rto = Math.min(RTO_MAX, p.rto * 2);
+                retransmisiones.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (d != null && now - ultimoProbe >= PROBE_INTERVAL) {
+            ultimoProbe = now;
+            mandarControl(controlTimer, PROBE, epoch, 0, d.getAddress(), d.getPort());
+        }
+    }
+
+    // ==========================
+    // LECTURA
+    // ==========================
+    private void leer() {
+        byte[] datos = new byte[MsgCodec.MAX_TRAMA + CABECERA];
+        DatagramPacket packet = new DatagramPacket(datos, datos.length);
+        ByteBuffer buf = ByteBuffer.wrap(datos);
+
+        while (!socket.isClosed()) {
+            try {
+                packet.setLength(datos.length);
+                socket.receive(packet);
+                if (packet.getLength() < CABECERA) continue;
+
+                buf.clear().limit(packet.getLength());
+                procesar(buf, packet.getAddress(), packet.getPort());
+
+            } catch (IOException e) {
+                if (!socket.isClosed()) System.out.println("[UdpHandoff] Error leyendo: " + e.getMessage());
+            }
+        }
+    }
+
+    private void procesar(ByteBuffer buf, InetAddress addr, int port) throws IOException {
+        byte tipo = buf.get();
+        int ep = buf.getInt();
+        int seq = buf.getInt();
+
+        switch (tipo) {
+
+            case DATA: {
+                int visto = ventana(addr, port).ver(ep, seq);
+                if (visto == Ventana.VIEJO) return; // no se sabe si llegó: sin ACK (el emisor ya lo dio por TCP)
+
+                // ACK a los nuevos y a los repetidos (el ACK anterior se pudo perder)
+                mandarControl(controlLector, ACK, ep, seq, addr, port);
+                if (visto == Ventana.REPETIDO) return;
+
+                if (!MsgCodec.tramaCompleta(buf)) return;
+                MsgCodec.leer(buf, lote, this);
+                break;
+            }
+
+            case ACK:
+                if (ep != epoch) break;
+                lock.lock();
+                try {
+                    Pendiente p = pendientes[seq & (VENTANA - 1)];
+                    if (p.seq == seq) p.seq = 0;
+                } finally {
+                    lock.unlock();
+                }
+                break;
+
+            case PROBE:
+                mandarControl(controlLector, PROBE_ACK, ep, seq, addr, port);
+                break;
+
+            case PROBE_ACK: {
+                InetSocketAddress d = destino;
+                if (ep == epoch && d != null && port == d.getPort() && addr.equals(d.getAddress())) {
+                    ultimoProbeAck = System.currentTimeMillis();
+                }
+                break;
+            }
+
+            default:
+                System.out.println("[UdpHandoff] Tipo desconocido: " + tipo);
+        }
+    }
+
+    // ventana de duplicados de cada emisor (normalmente solo hay uno: mi predecesor)
+    private Ventana ventana(InetAddress addr, int port) {
+        for (Ventana v : ventanas) {
+            if (v.port == port && v.addr.equals(addr)) return v;
+        }
+        Ventana v = new Ventana(addr, port);
+        ventanas = Arrays.copyOf(ventanas, ventanas.length + 1);
+        ventanas[ventanas.length - 1] = v;
+        return v;
+    }
+
+    @Override
+    public void bolas(LoteBolas l) {
+        com.introducirBolas(l);
+    }
+
+    @Override
+    public void sprite(float posicionY, float velocidadX, float velocidadY) {
+        com.introducirSprite(posicionY, velocidadX, velocidadY);
+    }
+
+    @Override
+    public void ping(long t0) { noEsperado(1); }
+
+    @Override
+    public void pong(long t0, long t1, long t2) { noEsperado(2); }
+
+    @Override
+    public void control(int header) { noEsperado(header); }
+
+    private void noEsperado(int header) {
+        System.out.println("[UdpHandoff] Header no esperado por UDP: " + header);
+    }
+
+    public void close() {
+        timer.shutdownNow();
+        socket.close();
+    }
+
+    // ==========================
+    // ESTADO
+    // ==========================
+    private static final class Pendiente {
+        final byte[] datos = new byte[MAX_DATAGRAMA];
+        final ByteBuffer buf = ByteBuffer.wrap(datos);   // para escribir el datagrama
+        final ByteBuffer trama = ByteBuffer.wrap(datos); // la trama sola, si vuelve a TCP
+        final DatagramPacket packet = new DatagramPacket(datos, datos.length);
+
+        int seq = 0; // 0 = libre
+        InetSocketAddress destino;
+        long ultimoEnvio;
+        long rto;
+        int intentos;
+    }
+
+    /** Datagrama de control (9 bytes) reutilizable; uno por hilo que los manda. */
+    private static final class Control {
+        final byte[] datos = new byte[CABECERA];
+        final ByteBuffer buf = ByteBuffer.wrap(datos);
+        final DatagramPacket packet = new DatagramPacket(datos, datos.length);
+    }
+
+    /**
+     * Ventana de los últimos VENTANA seq de un emisor (para descartar duplicados).
+     * El emisor no manda un seq a VENTANA o más del más antiguo que aún espera ACK (UdpHandoff.reservar),
+     * así que cualquier retransmisión que aún espera ACK cae dentro; lo VIEJO es algo que el emisor
+     * ya ha dejado de esperar (lo confirmó o lo mandó por TCP).
+     */
+    private static final class Ventana {
+        static final int NUEVO = 0, REPETIDO = 1, VIEJO = 2;
+
+        final InetAddress addr;
+        final int port;
+        int epoch;
+        int max;
+        final long[] vistos = new long[VENTANA / 64]; // bit (seq & (VENTANA - 1)) = se vio seq
+        boolean iniciada = false;
+
+        Ventana(InetAddress addr, int port) {
+            this.addr = addr;
+            this.port = port;
+        }
+
+        /** NUEVO (y lo apunta), REPETIDO dentro de la ventana, o VIEJO si ya no se puede saber. */
+        int ver(int ep, int seq) {
+            if (!iniciada || ep != epoch) { // primer datagrama o el emisor se ha reiniciado
+                iniciada = true;
+                epoch = ep;
+                max = seq;
+                Arrays.fill(vistos, 0L);
+                marcar(seq);
+                return NUEVO;
+            }
+
+            int delta = seq - max;
+            if (delta > 0) {
+                // los seq que se saltan pasan a "no vistos" (sus huecos son de hace VENTANA)
+                if (delta >= VENTANA) {
+                    Arrays.fill(vistos, 0L);
+                } else {
+                    for (int s = max + 1; s != seq; s++) borrar(s);
+                }
+                max = seq;
+                marcar(seq);
+                return NUEVO;
+            }
+
+            if (-delta >= VENTANA) return VIEJO;
+
+            if (visto(seq)) return REPETIDO;
+            marcar(seq);
+            return NUEVO;
+        }
+
+        private boolean visto(int seq) {
+            int b = seq & (VENTANA - 1);
+            return (vistos[b >>> 6] & (1L << b)) != 0;
+        }
+
+        private void marcar(int seq) {
+            int b = seq & (VENTANA - 1);
+            vistos[b >>> 6] |= 1L << b;
+        }
+
+        private void borrar(int seq) {
+            int b = seq & (VENTANA - 1);
+            vistos[b >>> 6] &= ~(1L << b);
+        }
+    }
+}
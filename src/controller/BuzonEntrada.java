@@ -0,0 +1,168 @@
+package controller;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * BuzonEntrada:
+ * Lo que llega al juego desde otros hilos (bolas y sprites de red, el botón LANZA),
+ * hasta que el GameLoop lo vacía al principio del tick.
+ * - Varios productores (un hilo lector por conexión + Swing), un solo consumidor (el GameLoop).
+ * - Sin locks: cada productor se reserva un hueco con un CAS y lo publica con su número de secuencia.
+ * - Huecos de primitivos (tipo + 4 floats), sin un objeto por mensaje.
+ * - Acotado (-Dbolas.buzon, 65536 por defecto): si está lleno se descarta y se cuenta.
+ */
+class BuzonEntrada {
+
+    /** Lo que se saca del buzón (siempre en el hilo del GameLoop). */
+    interface Receptor {
+        void bola(float posicionY, float radio, float velocidadX, float velocidadY);
+        void sprite(float posicionY, float velocidadX, float velocidadY);
+        void bolaLocal(); // botón LANZA
+    }
+
+    private static final int BOLA = 0;
+    private static final int SPRITE = 1;
+    private static final int BOLA_LOCAL = 2;
+
+    private static final int CAMPOS = 4;
+
+    private final int capacidad;
+    private final int mascara;
+
+    // secuencia[i] == pos: libre para el productor de pos; == pos + 1: publicado para el consumidor
+    private final AtomicLongArray secuencia;
+    private final int[] tipo;
+    private final float[] datos;
+
+    private final AtomicLong cola = new AtomicLong(); // siguiente posición a reservar (productores)
+    private long cabeza = 0;                         // siguiente posición a leer (solo el consumidor)
+
+    private final AtomicLong bolasDescartadas = new AtomicLong();
+    private final AtomicLong spritesDescartados = new AtomicLong();
+
+    BuzonEntrada() {
+        this(Integer.getInteger("bolas.buzon", 65536));
+    }
+
+    BuzonEntrada(int capacidadPedida) {
+        // potencia de 2 para sacar el hueco con una máscara
+        int c = Integer.highestOneBit(Math.max(2, capacidadPedida - 1)) << 1;
+        this.capacidad = c;
+        this.mascara = c - 1;
+
+        this.secuencia = new AtomicLongArray(c);
+        for (int i = 0; i < c; i++) secuencia.set(i, i);
+        this.tipo = new int[c];
+        this.datos = new float[c * CAMPOS];
+    }
+
+    // ==========================
+    // PRODUCTORES (cualquier hilo)
+    // ==========================
+
+    boolean bola(float posicionY, float radio, float velocidadX, float velocidadY) {
+        long pos = reservar();
+        if (pos < 0) {
+            contar(bolasDescartadas, "bolas descartadas");
+            return false;
+        }
+        publicar(pos, BOLA, posicionY, radio, velocidadX, velocidadY);
+        return true;
+    }
+
+    boolean sprite(float posicionY, float velocidadX, float velocidadY) {
+        long pos = reservar();
+        if (pos < 0) {
+            contar(spritesDescartados, "sprites descartados");
+            return false;
+        }
+        publicar(pos, SPRITE, posicionY, 0f, velocidadX, velocidadY);
+        return true;
+    }
+
+    boolean bolaLocal() {
+        long pos = reservar();
+        if (pos < 0) {
+            contar(bolasDescartadas, "bolas descartadas");
+            return false;
+        }
+        publicar(pos, BOLA_LOCAL, 0f, 0f, 0f, 0f);
+        return true;
+    }
+
+    // posición reservada, o -1 si está lleno
+    private long reservar() {
+        long pos = cola.get();
+        while (true) {
+            long dif = secuencia.get((int) pos & mascara) - pos;
+            if (dif == 0) {
+                if (cola.compareAndSet(pos, pos + 1)) return pos;
+                pos = cola.get();
+            } else if (dif < 0) {
+                return -1; // el consumidor todavía no ha leído ese hueco: lleno
+            } else {
+                pos = cola.get(); // otro productor se lo ha quedado
+            }
+        }
+    }
+
+    private void publicar(long pos, int t, float a, float b, float c, float d) {
+        int i = (int) pos & mascara;
+        tipo[i] = t;
+        int k = i * CAMPOS;
+        datos[k] = a;
+        datos[k + 1] = b;
+        datos[k + 2] = c;
+        datos[k + 3] = d;
+        secuencia.lazySet(i, pos + 1); // publica (escritura con release)
+    }
+
+    private void contar(AtomicLong contador, String que) {
+        long n = contador.incrementAndGet();
+        if (n == 1 || n % 100 == 0) {
+            System.out.println("[BuzonEntrada] Buzón lleno, " + que + ": " + n);
+        }
+    }
+
+    // ==========================
+    // CONSUMIDOR (GameLoop)
+    // ==========================
+
+    /**
+     * Entrega al receptor todo lo publicado hasta ahora (lo que llegue mientras, al siguiente tick).
+     * @return cuántos mensajes se han sacado
+     */
+    int drenar(Receptor r) {
+        long hasta = cola.get();
+        int n = 0;
+
+        while (cabeza < hasta) {
+            int i = (int) cabeza & mascara;
+            if (secuencia.get(i) != cabeza + 1) break; // reservado pero aún sin publicar
+
+            int k = i * CAMPOS;
+            switch (tipo[i]) {
+                case BOLA:
+                    r.bola(datos[k], datos[k + 1], datos[k + 2], datos[k + 3]);
+                    break;
+                case SPRITE:
+                    r.sprite(datos[k], datos[k + 2], datos[k + 3]);
+                    break;
+                default:
+                    r.bolaLocal();
+            }
+
+            secuencia.lazySet(i, cabeza + capacidad); // libre para la siguiente vuelta
+            cabeza++;
+            n++;
+        }
+        return n;
+    }
+
+    long getBolasDescartadas() { return bolasDescartadas.get(); }
+
+    long getSpritesDescartados() { return spritesDescartados.get(); }
+
+    int getCapacidad() { return capacidad; }
+}
@@ -1,20 +1,19 @@
 package controller;
 
+import comunications.Anillo;
 import comunications.Controller2;
-import model.dto.BolaDTO;
-import model.dto.SpriteDTO;
+import comunications.channel.Latencia;
+import model.Rendimiento;
+import model.dto.LoteBolas;
 import view.MainFrame;
 
 import java.net.*;
 import java.util.Enumeration;
-public class ControllerMain {
+public class ControllerMain implements Rendimiento.Red {
 
-    // IPs reales de 2 PCs (cuando uses 2 ordenadores)
-    private static final String IP_PEER_A = "ipfalsa";
-    private static final String IP_PEER_B = "ipfalsa";
-
-    private static final int PRIMARY_PORT   = 5000;
-    private static final int SECONDARY_PORT = 5001;
+    // Puerto base: en modo local cada peer de esta máquina escucha en PRIMARY_PORT + i
+    // (para varios PCs: -Dbolas.anillo=ip1:5000,ip2:5000,ip3:5000, ver comunications.Anillo)
+    private static final int PRIMARY_PORT = 5000;
 
     private final GameController gameController;
     private final Controller2 networkController;
@@ -23,72 +22,38 @@ public class ControllerMain {
 
         String localIp = detectLocalIp();
 
-        String peerId;
-        String remoteIp;
-
-        // --- Caso 2 PCs (por IP) ---
-        if (localIp != null && localIp.equals(IP_PEER_A)) {
-            peerId = "A";
-            remoteIp = IP_PEER_B;
-
-        } else if (localIp != null && localIp.equals(IP_PEER_B)) {
-            peerId = "B";
-            remoteIp = IP_PEER_A;
-
-        } else {
-            // --- Caso LOCALHOST (1 PC, 2 ventanas) ---
-            remoteIp = "localhost";
-            System.out.println("[ControllerMain] MODO LOCAL: usando localhost");
-
-            // 1) primero red (para saber en qué puerto escucha)
-            this.networkController = new Controller2(this, remoteIp, PRIMARY_PORT, SECONDARY_PORT);
-
-            int listenPort = networkController.getActualListenPort();
-            peerId = (listenPort == PRIMARY_PORT) ? "A" : "B";
-
-            System.out.println("[ControllerMain] Local IP: " + localIp +
-                    " | Peer: " + peerId +
-                    " | listenPort: " + listenPort +
-                    " | Remote IP: " + remoteIp);
-
-            // 2) UI con puerto REAL
-            MainFrame frame = new MainFrame(
-                    "Bolas P2P - Peer " + peerId + " (listen " + listenPort + ")",
-                    720, 420
-            );
-            frame.setVisible(true);
-
-            // 3) juego
-            this.gameController = new GameController(frame, peerId, this);
+        Anillo anillo = Anillo.desdeConfig(PRIMARY_PORT);
+        if (anillo.isModoLocal()) {
+            System.out.println("[ControllerMain] MODO LOCAL: " + anillo.size() + " peers en localhost");
+        }
 
-            // estado inicial (si quieres SOLO en A, te digo abajo)
-            gameController.spawnLocalBall();
-            gameController.spawnLocalBall();
+        // 1) primero red (para saber en qué posición del anillo estoy)
+        this.networkController = new Controller2(this, anillo);
 
-            return; // <- IMPORTANTÍSIMO: ya terminamos el constructor aquí
-        }
+        int posicion = anillo.getIndiceLocal();
+        int listenPort = networkController.getActualListenPort();
+        String peerId = anillo.etiqueta(posicion);
 
-        // --- Caso 2 PCs: aquí sí seguimos normal ---
         System.out.println("[ControllerMain] Local IP: " + localIp +
                 " | Peer: " + peerId +
-                " | Remote IP: " + remoteIp);
+                " | listenPort: " + listenPort +
+                " | Siguiente: " + anillo.sucesor(1) +
+                " | Anillo de " + anillo.size());
 
+        // 2) UI con puerto REAL
         MainFrame frame = new MainFrame(
-                "Bolas P2P - Peer " + peerId + " (ports " + PRIMARY_PORT + "/" + SECONDARY_PORT + ")",
-                720,
-                420
+                "Bolas P2P - Peer " + peerId + " (listen " + listenPort + ")",
+                720, 420
         );
         frame.setVisible(true);
 
+        // 3) juego
         this.gameController = new GameController(frame, peerId, this);
-        this.networkController = new Controller2(this, remoteIp, PRIMARY_PORT, SECONDARY_PORT);
 
         gameController.spawnLocalBall();
         gameController.spawnLocalBall();
     }
 
-
-
     private String detectLocalIp() {
         try {
             Enumeration<NetworkInterface> interfaces =
@@ -126,23 +91,49 @@ public class ControllerMain {
     // PUENTE: red <-> juego
     // ----------------------------
 
-    // Desde red hacia juego
-    public void introducirBola(BolaDTO bolaDTO) {
+    // Desde red hacia juego (el lote solo vale durante la llamada)
+    public void introducirBolas(LoteBolas lote) {
         if (gameController == null) return;
-        gameController.introducirBola(bolaDTO);
+        gameController.introducirBolas(lote);
+    }
+
+    public void introducirSprite(float posicionY, float velocidadX, float velocidadY) {
+        if (gameController == null) return;
+        gameController.introducirSprite(posicionY, velocidadX, velocidadY);
     }
 
     // Desde juego hacia red
-    public void lanzarBola(BolaDTO bolaDTO) {
-        networkController.lanzarBola(bolaDTO);
+    public void lanzarBolas(LoteBolas lote) {
+        networkController.lanzarBolas(lote);
     }
 
-    public void introducirSprite(SpriteDTO dto) {
-        if (gameController == null) return;
-        gameController.introducirSprite(dto);
+    public void lanzarSprite(float posicionY, float velocidadX, float velocidadY) {
+        networkController.lanzarSprite(posicionY, velocidadX, velocidadY);
+    }
+
+    // ----------------------------
+    // ESTADO DE LA RED (para el HUD)
+    // ----------------------------
+
+    @Override
+    public boolean isCanalValido() {
+        return networkController.isValid();
+    }
+
+    @Override
+    public int getSaltoSalida() {
+        return networkController.getSaltoSalida();
+    }
+
+    @Override
+    public long getRttP99Us() {
+        Latencia l = networkController.getLatenciaSalida();
+        return (l != null) ? l.getRttP99() : 0;
     }
 
-    public void lanzarSprite(SpriteDTO dto) {
-        networkController.lanzarSprite(dto);
+    @Override
+    public boolean isRedDegradada() {
+        Latencia l = networkController.getLatenciaSalida();
+        return l != null && l.isDegradado();
     }
-}
\ No newline at end of file
+}
@@ -1,21 +1,19 @@
 package controller;
 
-import model.Ball;
+import model.BallStore;
+import model.Colisiones;
+import model.Instantanea;
+import model.Instantaneas;
+import model.Rendimiento;
+import model.SpriteSheetCache;
 import model.SpriteSheetFactory;
-import model.dto.BolaDTO;
-import model.dto.SpriteDTO;
+import model.SpriteStore;
+import model.dto.LoteBolas;
 import view.MainFrame;
 
-import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.geom.Rectangle2D;
-import java.io.File;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.Random;
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 
 
 
@@ -34,31 +32,64 @@ public class GameController {
     private final Random rnd = new Random();
 
 
-    private final List<Ball> balls = Collections.synchronizedList(new ArrayList<>());
+    // Todas las bolas de este peer (columnas de floats; solo las toca el hilo del GameLoop)
+    private final BallStore balls = new BallStore();
 
+    // Lo que se pinta: cada tick se publica una copia (el paint nunca espera al loop ni al revés)
+    private final Instantaneas instantaneas = new Instantaneas();
 
-    private final Timer loopTimer;
+    // Choques entre bolas (rejilla uniforme que se rehace cada tick)
+    private final Colisiones colisiones = new Colisiones();
 
-    // Para calcular deltaTime real (tiempo entre frames) en segundos
-    private long lastNanos = System.nanoTime();
+    // Bolas que salen por la derecha en el tick actual (se mandan juntas al final; se reutiliza)
+    private final LoteBolas salientes = new LoteBolas();
+
+    // Lo que llega de otros hilos (red, botón LANZA): sin locks; el tick lo vacía de una vez
+    private final BuzonEntrada buzon = new BuzonEntrada();
+    private final Entrada entrada = new Entrada();
+
+    // Números para el HUD: los escribe el tick al terminar (sin memoria nueva)
+    private final Rendimiento rendimiento = new Rendimiento(GameLoop.TICK_HZ);
+    private long descartadasVistas = 0;
+
+
+    // Simulación con paso fijo en su propio hilo; el panel pinta por su cuenta (GameView.iniciarPintado)
+    private final GameLoop loop;
+
+    // Solo A: cada 5 s (de simulación) crea un sprite nuevo, hasta MAX_SPRITES a la vez (-Dbolas.maxSprites)
+    private static final float SPRITE_CADA_S = 5f;
+    private static final int MAX_SPRITES = Integer.getInteger("bolas.maxSprites", 200);
+    private float spriteEspera = 0f;
+
+    // Reloj de simulación (ticks): de él sale el frame de todos los sprites
+    private long ticks = 0;
 
     private static final float BALL_R = 16f;
 
-    // Datos del spritesheet (ruta y configuración de frames)
-    private static final String SPRITE_PATH = "C:\\Users\\anair\\Documents\\BolasP2P\\src\\Resources\\fuegosheet.jpeg";
+    // Colores de bola (RGB): cada bola nueva, local o recibida, coge uno al azar.
+    // El color no viaja por la red: el peer que la recibe le pone uno suyo.
+    private static final int[] BALL_COLORES = {
+            0xE76FAA, // rosa de siempre
+            0xF2A1C7,
+            0xB57EDC,
+            0x7FB8E6,
+            0x8ED1B0,
+            0xF6C177
+    };
+
+    // Datos del spritesheet (recurso del classpath y configuración de frames)
+    private static final String SPRITE_RECURSO = "/Resources/fuegosheet.jpeg";
     private static final int SPRITE_FRAME_W = 150;
     private static final int SPRITE_FRAME_H = 150;
     private static final int SPRITE_TOTAL_FRAMES = 29;
     private static final int SPRITE_CADENCE_MS = 60;
 
 
-    private SpriteSheetFactory anim = null;
+    // Hoja decodificada UNA vez (SpriteSheetCache): todos los sprites comparten sus frames
+    private final SpriteSheetFactory hoja;
 
-    // Posición y velocidad del sprite actual (si existe)
-    private int spriteX = 50;
-    private int spriteY = 50;
-    private int spriteVx = 4;
-    private int spriteVy = 3;
+    // Todos los sprites (posición, velocidad en píxeles por frame a 60 fps, fase de animación)
+    private final SpriteStore sprites = new SpriteStore(SPRITE_FRAME_W, SPRITE_FRAME_H);
 
 
     public GameController(MainFrame frame, String label, ControllerMain master) {
@@ -66,179 +97,159 @@ public class GameController {
         this.master = master;
         this.label = label;
 
-        // El panel dibuja la lista de bolas que controla este GameController
-        frame.getGamePanel().setBalls(balls);
+        loop = new GameLoop(this::tick);
+
+        // La hoja del sprite se carga aquí (no en el primer sprite que llegue, a mitad de partida)
+        hoja = SpriteSheetCache.global().obtener(SPRITE_RECURSO, SPRITE_FRAME_W, SPRITE_FRAME_H,
+                SPRITE_TOTAL_FRAMES, SPRITE_CADENCE_MS, true);
+
+        // El panel dibuja la última instantánea que publica este GameController
+        frame.getGamePanel().setSimulacion(instantaneas);
+
+        // HUD: tiempos del tick y traspasos (de aquí) + estado del canal (de la red)
+        rendimiento.setRed(master);
+        frame.getGamePanel().setRendimiento(rendimiento);
 
         /**
          * Solo A crea sprites automáticamente.
          * B normalmente los recibe desde red y los lanza en pantalla.
+         * (antes de arrancar el loop: luego el estado ya solo es del hilo del loop)
          */
         if ("A".equals(label)) {
             crearSpriteLocal(50, 50, 4, 3);
-
-            // Timer cada 5s: si no hay sprite activo, crea uno nuevo
-            new Timer(5000, e -> {
-                // si no hay sprite activo, crear otro
-                if (anim == null) {
-                    crearSpriteLocal(0, 50 + rnd.nextInt(120), 4, 3);
-                }
-            }).start();
         }
 
         // Botón: crear una bola local
         frame.getBtnSpawn().addActionListener(this::onSpawnClicked);
 
-        // Loop principal: tick cada 16ms (aprox 60fps)
-        loopTimer = new Timer(16, e -> tick());
-        loopTimer.start();
+        // Loop principal: simulación a GameLoop.TICK_HZ en su hilo
+        loop.start();
+
+        // Pintado independiente de la simulación (activo con BufferStrategy, o repaint con Timer)
+        frame.getGamePanel().iniciarPintado();
     }
 
- //esto hace que se repita
-    private void tick() {
-        long now = System.nanoTime();
-        float dt = (now - lastNanos) / 1_000_000_000f; // nanosegundos -> segundos
-        lastNanos = now;
+    /**
+     * tick(dt, tiempo):
+     * Un paso de simulación (lo llama el hilo del GameLoop).
+     * dt es siempre el mismo: 1 / GameLoop.TICK_HZ; tiempo es el instante del estado que se publica.
+     */
+    private void tick(float dt, long tiempo) {
+        ticks++;
 
-        // Mundo (área visible) del panel
+        // Mundo donde se simula (el panel, o más grande si se configuró; ver GameView)
         Rectangle2D.Float world = frame.getGamePanel().getWorldBounds();
         if (world.width <= 10 || world.height <= 10) return;
 
+        long inicio = System.nanoTime();
+
         // -------------------------
-        // 1) UPDATE BOLAS
+        // 0) LO QUE HA LLEGADO POR RED (y el botón LANZA)
         // -------------------------
-        synchronized (balls) {
-            for (int i = balls.size() - 1; i >= 0; i--) {
-                Ball b = balls.get(i);
-
-                // Actualiza posición y rebotes (depende de cómo esté Ball.update)
-                b.update(dt, world);
-
-                /**
-                 * Si la bola sale por la derecha:
-                 * - la convertimos a DTO (datos mínimos)
-                 * - la mandamos al otro peer con master.lanzarBola(dto)
-                 * - la quitamos de esta pantalla
-                 */
-                if (b.isOutRight(world)) {
-                    BolaDTO dto = new BolaDTO(
-                            b.getY(),                               // posición vertical
-                            b.getR(),                               // radio (por si varía)
-                            Math.max(90f, Math.abs(b.getVx())),     // velocidad X positiva (mínimo 90)
-                            b.getVy()                               // velocidad Y tal cual
-                    );
-
-                    // enviar por red
-                    master.lanzarBola(dto);
-
-                    // eliminar localmente (ya "pasó" a la otra pantalla)
-                    balls.remove(i);
+        int entran = meterEntrantes(world);
+
+        // Solo A: un sprite nuevo cada 5 s (mientras no haya demasiados)
+        if ("A".equals(label)) {
+            spriteEspera += dt;
+            if (spriteEspera >= SPRITE_CADA_S) {
+                spriteEspera -= SPRITE_CADA_S;
+                if (sprites.size() < MAX_SPRITES) {
+                    crearSpriteLocal(0, 50 + rnd.nextInt(120), 4, 3);
                 }
             }
         }
 
         // -------------------------
-        // 2) UPDATE SPRITE
+        // 1) UPDATE BOLAS
         // -------------------------
-        if (anim != null) {
-            // Avanza el frame de la animación
-            anim.update();
+        // Actualiza posición y rebotes de todas las bolas (en paralelo si hay muchas)
+        int salen = balls.update(dt, world);
 
-            // Mueve sprite por la pantalla y rebota en bordes
-            moveSprite(world);
+        // de atrás hacia delante: remove(i) trae la última bola al hueco
+        for (int k = salen - 1; k >= 0; k--) {
+            int i = balls.getSalida(k);
 
             /**
-             * Si el sprite sale por la derecha del mundo:
-             * - enviamos DTO al otro peer
-             * - destruimos el sprite aquí (anim = null)
-             * - quitamos el sprite del panel (setSprite null)
+             * La bola ha salido por la derecha:
+             * - apuntamos sus datos mínimos en salientes (se manda al otro peer al final del tick)
+             * - la quitamos de esta pantalla
              */
-            if (spriteX >= world.width) {
-                SpriteDTO dto = new SpriteDTO(spriteY, spriteVx, spriteVy);
-                master.lanzarSprite(dto);
-
-                anim = null;
-                frame.getGamePanel().setSprite(null, 0, 0);
-
-            } else {
-                // Si no ha salido, lo dibujamos en el panel con el frame actual
-                frame.getGamePanel().setSprite(anim.getCurrentFrame(), spriteX, spriteY);
-            }
+            salientes.add(
+                    balls.getY(i),                              // posición vertical
+                    balls.getR(i),                              // radio (por si varía)
+                    Math.max(90f, Math.abs(balls.getVx(i))),    // velocidad X positiva (mínimo 90)
+                    balls.getVy(i)                              // velocidad Y tal cual
+            );
+
+            // eliminar localmente (ya "pasó" a la otra pantalla)
+            balls.remove(i);
         }
 
-        // repintar panel
-        frame.getGamePanel().repaint();
-    }
+        // choques entre las que quedan
+        if (Colisiones.ACTIVAS) colisiones.resolver(balls, world);
 
-    /**
-     * moveSprite:
-     * - actualiza posición con velocidades
-     * - rebota en bordes (izquierda, arriba, abajo)
-     *
-     * Nota: el rebote en derecha NO está porque tú lo usas para "transferir" al otro peer.
-     */
-    private void moveSprite(Rectangle2D.Float world) {
-        spriteX += spriteVx;
-        spriteY += spriteVy;
+        // enviar por red: todas las bolas del tick en un solo lote (no bloquea el loop)
+        if (!salientes.isEmpty()) {
+            master.lanzarBolas(salientes);
+            salientes.clear();
+        }
 
-        int spriteH = anim.getFrameHeight();
-        int panelH = (int) world.height;
+        // -------------------------
+        // 2) UPDATE SPRITES
+        // -------------------------
+        // Mueve los sprites por la pantalla y rebotan en bordes (el frame sale del reloj al publicar)
+        int salenSprites = sprites.update(dt, world);
 
-        // Rebote izquierda
-        if (spriteX <= 0) {
-            spriteX = 0;
-            spriteVx = -spriteVx;
+        /**
+         * Los sprites que salen por la derecha del mundo:
+         * - se mandan al otro peer
+         * - se quitan de aquí (de atrás hacia delante, igual que las bolas)
+         */
+        for (int k = salenSprites - 1; k >= 0; k--) {
+            int i = sprites.getSalida(k);
+            master.lanzarSprite(sprites.getY(i), sprites.getVx(i), sprites.getVy(i));
+            sprites.remove(i);
         }
 
-        // Rebote arriba/abajo
-        if (spriteY <= 0) {
-            spriteY = 0;
-            spriteVy = -spriteVy;
-        } else if (spriteY + spriteH >= panelH) {
-            spriteY = panelH - spriteH;
-            spriteVy = -spriteVy;
-        }
+        // -------------------------
+        // 3) PUBLICAR LO QUE SE PINTA
+        // -------------------------
+        publicar(tiempo);
+
+        medir(inicio, entran, salen + salenSprites);
     }
 
-    /**
-     * crearSpriteLocal:
-     * - carga imagen del spritesheet desde disco
-     * - convierte blanco a transparente (para que se vea bonito)
-     * - crea SpriteSheetFactory con dimensiones y frames
-     * - arranca animación
-     * - pone posición y velocidad
-     * - manda el frame actual al panel para dibujar
-     */
-    private void crearSpriteLocal(int x, int y, int vx, int vy) {
-        BufferedImage sheet = loadSpriteFromDisk(SPRITE_PATH);
+    // Apunta los números del tick para el HUD
+    private void medir(long inicio, int entran, int salen) {
+        rendimiento.getEntradas().contar(entran);
+        rendimiento.getSalidas().contar(salen);
+
+        long descartadas = buzon.getBolasDescartadas() + buzon.getSpritesDescartados();
+        rendimiento.getDescartadas().contar(descartadas - descartadasVistas);
+        descartadasVistas = descartadas;
 
-        // Hace transparente el blanco del spritesheet (si tu método lo hace así)
-        sheet = SpriteSheetFactory.makeWhiteTransparent(sheet);
+        rendimiento.setColisiones(colisiones.getParesProbados(), colisiones.getChoques());
+        rendimiento.getTick().medir(System.nanoTime() - inicio);
+    }
 
-        // Crea la animación por frames
-        anim = new SpriteSheetFactory(sheet, SPRITE_FRAME_W, SPRITE_FRAME_H, SPRITE_TOTAL_FRAMES, SPRITE_CADENCE_MS);
-        anim.setLoop(true);
-        anim.start();
+    // Copia bolas y sprites en la instantánea libre (con el instante de su estado) y la deja como la última
+    private void publicar(long tiempo) {
+        Instantanea s = instantaneas.paraEscribir();
+        balls.copiarEn(s);
+        s.setTiempo(tiempo, loop.getPasoNanos());
 
-        spriteX = x;
-        spriteY = y;
-        spriteVx = vx;
-        spriteVy = vy;
+        sprites.copiarEn(s, hoja, ticks * 1000L / GameLoop.TICK_HZ);
 
-        // Inicializa el sprite en el panel
-        frame.getGamePanel().setSprite(anim.getCurrentFrame(), spriteX, spriteY);
+        instantaneas.publicar();
     }
 
     /**
-     * loadSpriteFromDisk:
-     * - carga una imagen desde ruta absoluta (tu PC)
-     * - si falla, lanza RuntimeException (para no seguir sin sprite)
+     * crearSpriteLocal:
+     * - añade el sprite con su posición, velocidad y una fase de animación al azar
+     * - sin cargar nada: usa los frames de la hoja compartida
      */
-    private BufferedImage loadSpriteFromDisk(String filePath) {
-        try {
-            return ImageIO.read(new File(filePath));
-        } catch (Exception e) {
-            throw new RuntimeException("Error cargando sprite desde disco: " + filePath, e);
-        }
+    private void crearSpriteLocal(int x, int y, int vx, int vy) {
+        sprites.add(x, y, vx, vy, rnd.nextInt(hoja.getTotalFrames()));
     }
 
     // Listener del botón
@@ -248,12 +259,18 @@ public class GameController {
 
     /**
      * spawnLocalBall:
+     * Se puede llamar desde cualquier hilo: la apunta en el buzón y la crea el siguiente tick.
+     */
+    public void spawnLocalBall() {
+        buzon.bolaLocal();
+    }
+
+    /**
+     * crearBolaLocal:
      * - crea bola en el lado izquierdo
      * - con posición Y aleatoria y velocidad fija hacia la derecha
      */
-    public void spawnLocalBall() {
-        Rectangle2D.Float world = frame.getGamePanel().getWorldBounds();
-        if (world.width <= 10 || world.height <= 10) return;
+    private void crearBolaLocal(Rectangle2D.Float world) {
 
         float r = BALL_R;
         float x = r + 2;
@@ -262,61 +279,102 @@ public class GameController {
         float vx = 160f;                 // hacia la derecha
         float vy = -60 + rnd.nextInt(121); // componente vertical random
 
-        balls.add(new Ball(x, y, r, vx, vy));
+        balls.add(x, y, r, vx, vy, colorAleatorio());
     }
 
     /**
-     * introducirBola(dto):
-     * Esta función la llama ControllerMain cuando llega una bola por red.
+     * introducirBolas(lote):
+     * Esta función la llama ControllerMain cuando llega un lote de bolas por red (header 0 o 4).
      *
-     * - Se ejecuta en el hilo de red, por eso usamos invokeLater:
-     *   para tocar la UI / lista desde el hilo de Swing.
-     * - Crea la bola entrando por la izquierda para que se vea que "entra".
+     * - Se ejecuta en el hilo de red: solo copia las bolas al buzón (el lote de red se reutiliza).
+     * - El tick las mete en el juego entrando por la izquierda, para que se vea que "entran".
+     */
+    public void introducirBolas(LoteBolas lote) {
+        if (lote == null) return;
+
+        for (int i = 0; i < lote.size(); i++) {
+            buzon.bola(lote.getPosicionY(i), lote.getRadio(i), lote.getVelocidadX(i), lote.getVelocidadY(i));
+        }
+    }
+
+    /**
+     * introducirSprite(posicionY, velocidadX, velocidadY):
+     * La llama ControllerMain cuando llega un sprite por red.
+     * Se apunta en el buzón; el tick lo crea (uno más entre todos los que haya).
+     */
+    public void introducirSprite(float posicionY, float velocidadX, float velocidadY) {
+        buzon.sprite(posicionY, velocidadX, velocidadY);
+    }
+
+    /**
+     * meterEntrantes:
+     * Vacía el buzón (en el hilo del GameLoop, al principio del tick).
+     * @return cuántas bolas y sprites han llegado de otro peer (las del botón no cuentan)
      */
-    public void introducirBola(BolaDTO dto) {
-        if (dto == null) return;
+    private int meterEntrantes(Rectangle2D.Float world) {
+        entrada.world = world;
+        entrada.deRed = 0;
+        buzon.drenar(entrada);
+        return entrada.deRed;
+    }
+
+    // Lo que sale del buzón en el tick
+    private final class Entrada implements BuzonEntrada.Receptor {
+        Rectangle2D.Float world;
+        int deRed;
+
+        @Override
+        public void bola(float posicionY, float radio, float velocidadX, float velocidadY) {
+            meterBola(posicionY, velocidadX, velocidadY, world);
+            deRed++;
+        }
+
+        @Override
+        public void sprite(float posicionY, float velocidadX, float velocidadY) {
+            meterSprite(posicionY, velocidadX, velocidadY, world);
+            deRed++;
+        }
 
-        SwingUtilities.invokeLater(() -> {
-            Rectangle2D.Float world = frame.getGamePanel().getWorldBounds();
-            if (world.width <= 10 || world.height <= 10) return;
+        @Override
+        public void bolaLocal() {
+            crearBolaLocal(world);
+        }
+    }
+
+    // Crea la bola entrando por la izquierda (siempre desde el hilo del GameLoop)
+    private void meterBola(float posicionY, float velocidadX, float velocidadY, Rectangle2D.Float world) {
+        float r = BALL_R;
+        float x = r + 2;
+        float y = clamp(posicionY, r, world.height - r);
 
-            float r = BALL_R;
-            float x = r + 2;
-            float y = clamp(dto.posicionY, r, world.height - r);
+        float vx = Math.max(90f, Math.abs(velocidadX)); // asegurar hacia la derecha
+        float vy = velocidadY;
 
-            float vx = Math.max(90f, Math.abs(dto.velocidadX)); // asegurar hacia la derecha
-            float vy = dto.velocidadY;
+        balls.add(x, y, r, vx, vy, colorAleatorio());
+    }
 
-            balls.add(new Ball(x, y, r, vx, vy));
-        });
+    private int colorAleatorio() {
+        return BALL_COLORES[rnd.nextInt(BALL_COLORES.length)];
     }
 
     /**
-     * introducirSprite(dto):
-     * La llama ControllerMain cuando llega un sprite por red.
+     * meterSprite:
      * - Lo coloca empezando fuera a la izquierda (x = -frameW) para que "entre suave".
-     * - Usa velocidades del dto (ajustando para que vx sea positivo).
+     * - Usa las velocidades recibidas (ajustando para que vx sea positivo).
      * - Crea el sprite local con los datos recibidos.
      */
-    public void introducirSprite(SpriteDTO dto) {
-        if (dto == null) return;
-
-        SwingUtilities.invokeLater(() -> {
-            Rectangle2D.Float world = frame.getGamePanel().getWorldBounds();
-            if (world.width <= 10 || world.height <= 10) return;
-
-            int x = -SPRITE_FRAME_W;
-            int y = (int) clamp(dto.posicionY, 0, world.height - SPRITE_FRAME_H);
+    private void meterSprite(float posicionY, float velocidadX, float velocidadY, Rectangle2D.Float world) {
+        int x = -SPRITE_FRAME_W;
+        int y = (int) clamp(posicionY, 0, world.height - SPRITE_FRAME_H);
 
-            int vx = (int) dto.velocidadX;
-            int vy = (int) dto.velocidadY;
+        int vx = (int) velocidadX;
+        int vy = (int) velocidadY;
 
-            // asegurar que se mueve a la derecha (para entrar en pantalla)
-            if (vx < 0) vx = -vx;
-            if (vx == 0) vx = 4;
+        // asegurar que se mueve a la derecha (para entrar en pantalla)
+        if (vx < 0) vx = -vx;
+        if (vx == 0) vx = 4;
 
-            crearSpriteLocal(x, y, vx, vy);
-        });
+        crearSpriteLocal(x, y, vx, vy);
     }
 
     // clamp = limita un valor entre min y max
@@ -326,9 +384,10 @@ public class GameController {
 
     /**
      * shutdown:
-     * - para el timer del juego (cuando cierras ventana o sales)
+     * - para la simulación y el pintado (cuando cierras ventana o sales)
      */
     public void shutdown() {
-        loopTimer.stop();
+        loop.stop();
+        frame.getGamePanel().pararPintado();
     }
 }
\ No newline at end of file
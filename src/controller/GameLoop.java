@@ -0,0 +1,105 @@
+package controller;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * GameLoop:
+ * Hilo propio para la simulación, con paso fijo (ya no depende del Timer de Swing ni de lo que tarde el paint).
+ * - Cada paso avanza exactamente 1/TICK_HZ segundos (-Dbolas.tickHz, 60 por defecto).
+ * - Acumulador: el tiempo real que pasa se va gastando en pasos fijos; lo que sobra se queda para el siguiente.
+ * - Si se atrasa mucho (GC, portátil suspendido...) tira el atraso en vez de encadenar cientos de pasos.
+ * - El estado del juego solo lo toca este hilo; el paint lee las Instantaneas que publica cada paso.
+ * - Cada paso recibe el instante al que corresponde su estado; va dentro de la Instantanea que publica
+ *   (Instantanea.getAlpha), así el paint interpola con el tiempo de la misma instantánea que pinta.
+ */
+public class GameLoop implements Runnable {
+
+    /**
+     * El trabajo de un paso de simulación (dt siempre el mismo).
+     * tiempo: instante (nanoTime) al que corresponde el estado cuando acaba el paso.
+     */
+    public interface Paso {
+        void paso(float dt, long tiempo);
+    }
+
+    public static final int TICK_HZ = leerTickHz();
+
+    // como mucho se recuperan estos pasos seguidos; el resto del atraso se pierde
+    private static final int MAX_PASOS_SEGUIDOS = 8;
+
+    private final Paso paso;
+    private final float dt;
+    private final long pasoNanos;
+
+    private volatile boolean corriendo = false;
+    private Thread hilo;
+
+    public GameLoop(Paso paso) {
+        this.paso = paso;
+        this.dt = 1f / TICK_HZ;
+        this.pasoNanos = 1_000_000_000L / TICK_HZ;
+    }
+
+    public synchronized void start() {
+        if (corriendo) return;
+        corriendo = true;
+
+        hilo = new Thread(this, "GameLoop");
+        hilo.setDaemon(true);
+        hilo.start();
+
+        System.out.println("[GameLoop] Simulación a " + TICK_HZ + " Hz");
+    }
+
+    public synchronized void stop() {
+        corriendo = false;
+        if (hilo != null) hilo.interrupt();
+        hilo = null;
+    }
+
+    @Override
+    public void run() {
+        long anterior = System.nanoTime();
+        long acumulado = 0;
+
+        while (corriendo && !Thread.currentThread().isInterrupted()) {
+            long ahora = System.nanoTime();
+            acumulado += ahora - anterior;
+            anterior = ahora;
+
+            // demasiado atraso: no intentar recuperarlo todo
+            if (acumulado > MAX_PASOS_SEGUIDOS * pasoNanos) {
+                acumulado = MAX_PASOS_SEGUIDOS * pasoNanos;
+            }
+
+            while (acumulado >= pasoNanos) {
+                acumulado -= pasoNanos;
+                try {
+                    paso.paso(dt, ahora - acumulado);
+                } catch (RuntimeException e) {
+                    System.out.println("[GameLoop] Error en el paso: " + e);
+                }
+            }
+
+            // dormir hasta que toque el siguiente paso
+            LockSupport.parkNanos(pasoNanos - acumulado);
+        }
+    }
+
+    public long getPasoNanos() {
+        return pasoNanos;
+    }
+
+    public float getDt() {
+        return dt;
+    }
+
+    private static int leerTickHz() {
+        int hz = Integer.getInteger("bolas.tickHz", 60);
+        if (hz < 10 || hz > 1000) {
+            System.out.println("[GameLoop] bolas.tickHz fuera de rango (" + hz + "), uso 60");
+            return 60;
+        }
+        return hz;
+    }
+}
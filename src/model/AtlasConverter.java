@@ -0,0 +1,55 @@
+package model;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * model.AtlasConverter:
+ * Paso offline: convierte las hojas de src/Resources en atlas binarios (ver SpriteAtlas),
+ * con el blanco ya quitado y los frames ya cortados. El juego los usa si los encuentra en -Dbolas.atlasDir.
+ *
+ * Uso:
+ *   java model.AtlasConverter                       -> convierte las hojas del juego
+ *   java model.AtlasConverter recurso frameW frameH frames cadenciaMs
+ *
+ * Los .atlas son ficheros generados: no se suben al repo (se vuelven a generar).
+ */
+public class AtlasConverter {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 5) {
+            convertir(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                    Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+            return;
+        }
+        if (args.length != 0) {
+            System.out.println("Uso: AtlasConverter [recurso frameW frameH frames cadenciaMs]");
+            return;
+        }
+
+        // las hojas del juego (mismos parámetros que GameController)
+        convertir("/Resources/fuegosheet.jpeg", 150, 150, 29, 60);
+        convertir("/Resources/pitufo.png", 360, 119, 1, 60); // una sola imagen
+    }
+
+    static void convertir(String recurso, int frameW, int frameH, int totalFrames, int cadenceMs) throws Exception {
+        int umbral = SpriteSheetFactory.UMBRAL_BLANCO;
+
+        BufferedImage sheet = SpriteSheetFactory.makeWhiteTransparent(SpriteSheetCache.cargar(recurso), umbral);
+        SpriteSheetFactory hoja = new SpriteSheetFactory(sheet, frameW, frameH, totalFrames, cadenceMs);
+
+        // solo los frames que existen de verdad (la hoja puede tener menos de totalFrames)
+        int n = 0;
+        while (n < hoja.getTotalFrames() && hoja.getFrame(n) != null) n++;
+        BufferedImage[] frames = new BufferedImage[n];
+        for (int i = 0; i < n; i++) frames[i] = hoja.getFrame(i);
+
+        Path salida = SpriteAtlas.rutaPara(recurso);
+        if (salida.getParent() != null) Files.createDirectories(salida.getParent());
+        SpriteAtlas.escribir(salida, frames, frameW, frameH, cadenceMs, umbral);
+
+        System.out.println("[AtlasConverter] " + recurso + " -> " + salida + " (" + n + " frames, "
+                + (Files.size(salida) / 1024) + " KB)");
+    }
+}
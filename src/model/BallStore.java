@@ -0,0 +1,247 @@
+package model;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * model.BallStore (modelo):
+ * Todas las bolas del peer en columnas de primitivos (x, y, vx, vy, r + id y color),
+ * en vez de un objeto Ball por bola:
+ * - update() mueve todas las bolas de una pasada recorriendo los arrays (física de siempre:
+ *   se mueven con dt y rebotan arriba/abajo/izquierda perdiendo un 2% de velocidad).
+ * - remove(i) copia la última bola al hueco (O(1), no desplaza el array): el orden no se mantiene,
+ *   así que para quitar mientras se recorre hay que ir de atrás hacia delante.
+ * - Los arrays crecen al doble cuando se llenan; luego ya no se asigna memoria.
+ * - Guarda también la posición del paso anterior (prevX/prevY) para que el paint interpole.
+ * - Con muchas bolas (-Dbolas.paraleloDesde, 50000 por defecto; 0 = nunca) update() reparte
+ *   la física en trozos de TROZO bolas por el ForkJoinPool común. Cada trozo apunta sus salidas
+ *   y luego se juntan en orden de índice: el resultado es el mismo que en secuencial.
+ *
+ * No es thread-safe: solo la usa el hilo del GameLoop (el paint lee una copia, ver copiarEn).
+ */
+public class BallStore {
+
+    public static final int PARALELO_DESDE = Integer.getInteger("bolas.paraleloDesde", 50_000);
+    private static final int TROZO = 8192;
+
+    private long nextId = 1;
+
+    // sin private: Colisiones (mismo paquete) trabaja directamente sobre las columnas
+    float[] x, y, vx, vy, r;
+    private float[] prevX, prevY;
+    private long[] ids;
+    private int[] color; // RGB (0xRRGGBB), lo elige quien crea la bola
+    int size = 0;
+
+    // salidas por la derecha del último update (índices de menor a mayor)
+    private int[] salidas;
+    private int nSalidas = 0;
+
+    // en paralelo cada trozo escribe sus salidas en porTrozo[desde..] y cuenta en salidasTrozo
+    private int[] porTrozo = new int[0];
+    private int[] salidasTrozo = new int[0];
+
+    public BallStore() {
+        this(64);
+    }
+
+    public BallStore(int capacidad) {
+        int c = Math.max(1, capacidad);
+        x = new float[c];
+        y = new float[c];
+        vx = new float[c];
+        vy = new float[c];
+        r = new float[c];
+        prevX = new float[c];
+        prevY = new float[c];
+        ids = new long[c];
+        color = new int[c];
+        salidas = new int[c];
+    }
+
+    /**
+     * Añade una bola y devuelve su id.
+     * @param rgb color de la bola (0xRRGGBB)
+     */
+    public long add(float bx, float by, float br, float bvx, float bvy, int rgb) {
+        if (size == x.length) crecer();
+
+        int i = size++;
+        x[i] = prevX[i] = bx;
+        y[i] = prevY[i] = by;
+        r[i] = br;
+        vx[i] = bvx;
+        vy[i] = bvy;
+        color[i] = rgb;
+        ids[i] = nextId++;
+        return ids[i];
+    }
+
+    /** Quita la bola i poniendo la última en su lugar. */
+    public void remove(int i) {
+        int last = --size;
+        if (i == last) return;
+
+        x[i] = x[last];
+        y[i] = y[last];
+        r[i] = r[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        prevX[i] = prevX[last];
+        prevY[i] = prevY[last];
+        ids[i] = ids[last];
+        color[i] = color[last];
+    }
+
+    public void clear() { size = 0; }
+
+    /**
+     * Avanza la física de todas las bolas y apunta las que han salido por la derecha
+     * (ver getSalida; no se quitan aquí).
+     * @param dtSeconds tiempo transcurrido en segundos
+     * @param bounds área jugable (panel)
+     * @return cuántas bolas han salido por la derecha
+     */
+    public int update(float dtSeconds, Rectangle2D.Float bounds) {
+        if (PARALELO_DESDE > 0 && size >= PARALELO_DESDE) {
+            return updateParalelo(dtSeconds, bounds);
+        }
+        nSalidas = mover(0, size, dtSeconds, bounds, salidas, 0);
+        return nSalidas;
+    }
+
+    /** Índice de la k-ésima bola que salió en el último update (de menor a mayor). */
+    public int getSalida(int k) { return salidas[k]; }
+
+    public int getNumSalidas() { return nSalidas; }
+
+    private int updateParalelo(float dtSeconds, Rectangle2D.Float bounds) {
+        int trozos = (size + TROZO - 1) / TROZO;
+        if (porTrozo.length < size) porTrozo = new int[x.length];
+        if (salidasTrozo.length < trozos) salidasTrozo = new int[trozos];
+
+        ForkJoinPool.commonPool().invoke(new Fisica(0, trozos, dtSeconds, bounds));
+
+        // juntar en orden de trozo (determinista, igual que en secuencial)
+        int n = 0;
+        for (int t = 0; t < trozos; t++) {
+            int c = salidasTrozo[t];
+            System.arraycopy(porTrozo, t * TROZO, salidas, n, c);
+            n += c;
+        }
+        nSalidas = n;
+        return n;
+    }
+
+    // Parte los trozos [desdeTrozo, hastaTrozo) por la mitad hasta quedarse con uno
+    private final class Fisica extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int desdeTrozo, hastaTrozo;
+        private final float dt;
+        private final Rectangle2D.Float bounds;
+
+        Fisica(int desdeTrozo, int hastaTrozo, float dt, Rectangle2D.Float bounds) {
+            this.desdeTrozo = desdeTrozo;
+            this.hastaTrozo = hastaTrozo;
+            this.dt = dt;
+            this.bounds = bounds;
+        }
+
+        @Override
+        protected void compute() {
+            if (hastaTrozo - desdeTrozo == 1) {
+                int desde = desdeTrozo * TROZO;
+                int hasta = Math.min(size, desde + TROZO);
+                salidasTrozo[desdeTrozo] = mover(desde, hasta, dt, bounds, porTrozo, desde);
+                return;
+            }
+            int mitad = (desdeTrozo + hastaTrozo) >>> 1;
+            invokeAll(new Fisica(desdeTrozo, mitad, dt, bounds), new Fisica(mitad, hastaTrozo, dt, bounds));
+        }
+    }
+
+    /**
+     * Física de las bolas [desde, hasta). Los índices de las que salen por la derecha
+     * se escriben en out[outDesde..]; devuelve cuántas.
+     */
+    private int mover(int desde, int hasta, float dtSeconds, Rectangle2D.Float bounds, int[] out, int outDesde) {
+        float top = bounds.y;
+        float bottom = bounds.y + bounds.height;
+        float left = bounds.x;
+        float right = bounds.x + bounds.width;
+        int n = 0;
+
+        for (int i = desde; i < hasta; i++) {
+            prevX[i] = x[i];
+            prevY[i] = y[i];
+
+            float xi = x[i] + vx[i] * dtSeconds;
+            float yi = y[i] + vy[i] * dtSeconds;
+            float ri = r[i];
+
+            // Rebote izquierda (tras un choque una bola puede ir hacia atrás)
+            if (xi - ri < left) {
+                xi = left + ri;
+                vx[i] = -vx[i] * 0.98f;
+            }
+            x[i] = xi;
+
+            // Rebote arriba/abajo
+            if (yi - ri < top) {
+                yi = top + ri;
+                vy[i] = -vy[i] * 0.98f;
+            } else if (yi + ri > bottom) {
+                yi = bottom - ri;
+                vy[i] = -vy[i] * 0.98f;
+            }
+            y[i] = yi;
+
+            if (x[i] - ri > right) out[outDesde + n++] = i;
+        }
+        return n;
+    }
+
+    /** True si la bola i ya salió totalmente por la derecha del área */
+    public boolean isOutRight(int i, Rectangle2D.Float bounds) {
+        return (x[i] - r[i]) > (bounds.x + bounds.width);
+    }
+
+    public int size() { return size; }
+
+    public float getX(int i) { return x[i]; }
+    public float getY(int i) { return y[i]; }
+    public float getR(int i) { return r[i]; }
+    public float getVx(int i) { return vx[i]; }
+    public float getVy(int i) { return vy[i]; }
+    public long getId(int i) { return ids[i]; }
+    public int getColor(int i) { return color[i]; }
+
+    /** Copia las posiciones (anterior y actual), radios y colores en la instantánea que se va a pintar. */
+    public void copiarEn(Instantanea s) {
+        s.asegurar(size);
+        System.arraycopy(x, 0, s.x, 0, size);
+        System.arraycopy(y, 0, s.y, 0, size);
+        System.arraycopy(prevX, 0, s.prevX, 0, size);
+        System.arraycopy(prevY, 0, s.prevY, 0, size);
+        System.arraycopy(r, 0, s.r, 0, size);
+        System.arraycopy(color, 0, s.color, 0, size);
+        s.n = size;
+    }
+
+    private void crecer() {
+        int c = x.length * 2;
+        x = Arrays.copyOf(x, c);
+        y = Arrays.copyOf(y, c);
+        vx = Arrays.copyOf(vx, c);
+        vy = Arrays.copyOf(vy, c);
+        r = Arrays.copyOf(r, c);
+        prevX = Arrays.copyOf(prevX, c);
+        prevY = Arrays.copyOf(prevY, c);
+        ids = Arrays.copyOf(ids, c);
+        color = Arrays.copyOf(color, c);
+        salidas = new int[c];
+    }
+}
@@ -0,0 +1,186 @@
+package model;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * model.Colisiones (modelo):
+ * Choques elásticos entre bolas de un BallStore.
+ * - Fase ancha: rejilla uniforme rehecha en cada tick (celdas del tamaño del diámetro mayor).
+ *   Las bolas se ordenan por celda (counting sort sobre arrays de int, sin objetos) y cada bola
+ *   solo se compara con las de su celda y las 4 vecinas "de delante" (cada par una sola vez).
+ * - Fase estrecha: si se tocan y se acercan, intercambian impulso a lo largo de la normal
+ *   (masa = r², choque perfectamente elástico) y se separan lo que se solapaban.
+ *
+ * El coste es lineal en número de bolas mientras la densidad no se dispare.
+ * Se puede apagar con -Dbolas.colisiones=false.
+ */
+public class Colisiones {
+
+    public static final boolean ACTIVAS =
+            Boolean.parseBoolean(System.getProperty("bolas.colisiones", "true"));
+
+    // rejilla (se reutiliza entre ticks; solo crece)
+    private int[] inicioCelda = new int[0]; // bolas de la celda c: orden[inicioCelda[c] .. inicioCelda[c+1])
+    private int[] orden = new int[0];       // índices de bola ordenados por celda
+    private int[] celdaDe = new int[0];     // celda de cada bola
+
+    private int cols, filas;
+    private float celda;
+
+    // estadísticas del último tick
+    private long paresProbados = 0;
+    private int choques = 0;
+
+    /**
+     * Resuelve los choques de este tick.
+     * @param s bolas (ya movidas)
+     * @param bounds área jugable (las bolas de fuera van a las celdas del borde)
+     */
+    public void resolver(BallStore s, Rectangle2D.Float bounds) {
+        paresProbados = 0;
+        choques = 0;
+
+        int n = s.size;
+        if (n < 2) return;
+
+        construir(s, bounds);
+
+        float[] x = s.x, y = s.y, r = s.r;
+
+        for (int c = 0; c < cols * filas; c++) {
+            int desde = inicioCelda[c];
+            int hasta = inicioCelda[c + 1];
+            if (desde == hasta) continue;
+
+            int cx = c % cols;
+            int cy = c / cols;
+
+            for (int a = desde; a < hasta; a++) {
+                int i = orden[a];
+
+                // misma celda: solo las que van detrás (cada par una vez)
+                for (int b = a + 1; b < hasta; b++) probar(s, i, orden[b], x, y, r);
+
+                // vecinas de delante: derecha, y la fila de abajo entera
+                if (cx + 1 < cols) probarCelda(s, i, c + 1, x, y, r);
+                if (cy + 1 < filas) {
+                    int abajo = c + cols;
+                    if (cx > 0) probarCelda(s, i, abajo - 1, x, y, r);
+                    probarCelda(s, i, abajo, x, y, r);
+                    if (cx + 1 < cols) probarCelda(s, i, abajo + 1, x, y, r);
+                }
+            }
+        }
+    }
+
+    /** Pares de bolas comprobados en el último tick. */
+    public long getParesProbados() { return paresProbados; }
+
+    /** Choques resueltos en el último tick. */
+    public int getChoques() { return choques; }
+
+    // ==========================
+    // FASE ANCHA: REJILLA
+    // ==========================
+
+    private void construir(BallStore s, Rectangle2D.Float bounds) {
+        int n = s.size;
+        float[] x = s.x, y = s.y, r = s.r;
+
+        float maxR = 1f;
+        for (int i = 0; i < n; i++) if (r[i] > maxR) maxR = r[i];
+
+        // celdas del diámetro mayor; si el mundo es enorme para tan pocas bolas, celdas más grandes
+        celda = 2f * maxR;
+        long maxCeldas = 4L * n + 64;
+        while ((long) Math.ceil(bounds.width / celda) * (long) Math.ceil(bounds.height / celda) > maxCeldas) {
+            celda *= 2f;
+        }
+        cols = Math.max(1, (int) Math.ceil(bounds.width / celda));
+        filas = Math.max(1, (int) Math.ceil(bounds.height / celda));
+        int celdas = cols * filas;
+
+        if (inicioCelda.length < celdas + 1) inicioCelda = new int[celdas + 1];
+        if (orden.length < n) {
+            orden = new int[s.x.length];
+            celdaDe = new int[s.x.length];
+        }
+
+        // 1) contar bolas por celda
+        Arrays.fill(inicioCelda, 0, celdas + 1, 0);
+        for (int i = 0; i < n; i++) {
+            int cx = clamp((int) ((x[i] - bounds.x) / celda), cols);
+            int cy = clamp((int) ((y[i] - bounds.y) / celda), filas);
+            int c = cy * cols + cx;
+            celdaDe[i] = c;
+            inicioCelda[c + 1]++;
+        }
+
+        // 2) acumulado: dónde empieza cada celda
+        for (int c = 0; c < celdas; c++) inicioCelda[c + 1] += inicioCelda[c];
+
+        // 3) colocar (uso inicioCelda[c] como cursor y luego lo devuelvo a su sitio)
+        for (int i = 0; i < n; i++) orden[inicioCelda[celdaDe[i]]++] = i;
+        for (int c = celdas; c > 0; c--) inicioCelda[c] = inicioCelda[c - 1];
+        inicioCelda[0] = 0;
+    }
+
+    private static int clamp(int v, int n) {
+        return (v < 0) ? 0 : (v >= n ? n - 1 : v);
+    }
+
+    // ==========================
+    // FASE ESTRECHA
+    // ==========================
+
+    private void probarCelda(BallStore s, int i, int c, float[] x, float[] y, float[] r) {
+        for (int b = inicioCelda[c], hasta = inicioCelda[c + 1]; b < hasta; b++) {
+            probar(s, i, orden[b], x, y, r);
+        }
+    }
+
+    private void probar(BallStore s, int i, int j, float[] x, float[] y, float[] r) {
+        paresProbados++;
+
+        float dx = x[j] - x[i];
+        float dy = y[j] - y[i];
+        float suma = r[i] + r[j];
+        float d2 = dx * dx + dy * dy;
+        if (d2 >= suma * suma) return;
+
+        // normal de i hacia j (si están en el mismo punto, una cualquiera)
+        float d = (float) Math.sqrt(d2);
+        float nx, ny;
+        if (d > 1e-6f) {
+            nx = dx / d;
+            ny = dy / d;
+        } else {
+            nx = 1f;
+            ny = 0f;
+        }
+
+        float mi = r[i] * r[i];
+        float mj = r[j] * r[j];
+        float mTotal = mi + mj;
+
+        // separar lo que se solapan (la más ligera se mueve más)
+        float solape = suma - d;
+        x[i] -= nx * solape * (mj / mTotal);
+        y[i] -= ny * solape * (mj / mTotal);
+        x[j] += nx * solape * (mi / mTotal);
+        y[j] += ny * solape * (mi / mTotal);
+
+        // solo si se acercan: impulso elástico a lo largo de la normal
+        float[] vx = s.vx, vy = s.vy;
+        float vn = (vx[i] - vx[j]) * nx + (vy[i] - vy[j]) * ny;
+        if (vn <= 0) return;
+
+        float k = 2f * vn / mTotal;
+        vx[i] -= k * mj * nx;
+        vy[i] -= k * mj * ny;
+        vx[j] += k * mi * nx;
+        vy[j] += k * mi * ny;
+        choques++;
+    }
+}
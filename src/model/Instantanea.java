@@ -0,0 +1,85 @@
+package model;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * model.Instantanea (modelo):
+ * Copia de lo que hay que pintar en un tick (bolas y sprites), para que el paint
+ * no toque el estado que está moviendo el GameLoop.
+ * - Solo columnas de primitivos: posición del paso anterior y actual (para interpolar), radio y color.
+ * - Lleva el instante al que corresponde (tiempo): el alpha para interpolar sale de ella (getAlpha),
+ *   no de un reloj aparte que pueda ir por delante o por detrás de la instantánea que se pinta.
+ * - Sprites: posición y el índice del frame que toca; las imágenes son las compartidas de la hoja.
+ * - Se reutiliza (ver Instantaneas): los arrays solo crecen.
+ * - Mientras la escribe el GameLoop nadie la lee, y mientras la lee el paint nadie la escribe.
+ */
+public class Instantanea {
+
+    int n = 0;
+    float[] x = new float[0], y = new float[0];
+    float[] prevX = new float[0], prevY = new float[0];
+    float[] r = new float[0];
+    int[] color = new int[0];
+
+    int nSprites = 0;
+    float[] spriteX = new float[0], spriteY = new float[0];
+    float[] spritePrevX = new float[0], spritePrevY = new float[0];
+    int[] spriteFrame = new int[0];
+    SpriteSheetFactory hoja = null; // frames compartidos por todos los sprites
+
+    long tiempo = 0;    // nanoTime al que corresponde el estado actual (x, y)
+    long pasoNanos = 0; // lo que dura un paso; 0 = sin simulación (se pinta tal cual)
+
+    void asegurar(int bolas) {
+        if (x.length >= bolas) return;
+
+        int c = Math.max(bolas, x.length * 2);
+        x = Arrays.copyOf(x, c);
+        y = Arrays.copyOf(y, c);
+        prevX = Arrays.copyOf(prevX, c);
+        prevY = Arrays.copyOf(prevY, c);
+        r = Arrays.copyOf(r, c);
+        color = Arrays.copyOf(color, c);
+    }
+
+    void asegurarSprites(int sprites) {
+        if (spriteX.length >= sprites) return;
+
+        int c = Math.max(sprites, spriteX.length * 2);
+        spriteX = Arrays.copyOf(spriteX, c);
+        spriteY = Arrays.copyOf(spriteY, c);
+        spritePrevX = Arrays.copyOf(spritePrevX, c);
+        spritePrevY = Arrays.copyOf(spritePrevY, c);
+        spriteFrame = Arrays.copyOf(spriteFrame, c);
+    }
+
+    /** Instante (nanoTime) del estado y lo que dura un paso de la simulación. */
+    public void setTiempo(long tiempo, long pasoNanos) {
+        this.tiempo = tiempo;
+        this.pasoNanos = pasoNanos;
+    }
+
+    /** Fracción (0..1) del paso siguiente que ya ha pasado en "ahora" (para interpolar al pintar). */
+    public float getAlpha(long ahora) {
+        if (pasoNanos <= 0) return 1f;
+        float a = (ahora - tiempo) / (float) pasoNanos;
+        return Math.max(0f, Math.min(1f, a));
+    }
+
+    public int size() { return n; }
+
+    // posición pintada: entre la del paso anterior y la actual (alpha 0..1)
+    public float getX(int i, float alpha) { return prevX[i] + (x[i] - prevX[i]) * alpha; }
+    public float getY(int i, float alpha) { return prevY[i] + (y[i] - prevY[i]) * alpha; }
+    public float getR(int i) { return r[i]; }
+    public int getColor(int i) { return color[i]; }
+
+    public int getNumSprites() { return nSprites; }
+    public BufferedImage getSpriteImagen(int i) { return hoja.getFrame(spriteFrame[i]); }
+    // tamaño de los frames (el mismo para todos los sprites): para saber si uno se ve sin pedir su imagen
+    public int getSpriteAncho() { return (hoja != null) ? hoja.getFrameWidth() : 0; }
+    public int getSpriteAlto() { return (hoja != null) ? hoja.getFrameHeight() : 0; }
+    public float getSpriteX(int i, float alpha) { return spritePrevX[i] + (spriteX[i] - spritePrevX[i]) * alpha; }
+    public float getSpriteY(int i, float alpha) { return spritePrevY[i] + (spriteY[i] - spritePrevY[i]) * alpha; }
+}
@@ -0,0 +1,47 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * model.Instantaneas (modelo):
+ * Triple buffer de Instantanea entre el GameLoop (escribe una por tick) y el paint (lee la última).
+ * - Una la está escribiendo el GameLoop, otra la está pintando el hilo que pinta y la del medio es la última publicada.
+ * - publicar() y paraLeer() solo intercambian índices con un getAndSet: ninguno espera al otro.
+ * - Si se pinta más lento de lo que se simula, las instantáneas intermedias se pisan (solo cuenta la última).
+ *
+ * Un solo escritor (GameLoop) y un solo hilo que pinta a la vez:
+ * - modo activo: el hilo "Render" de GameCanvas; modo pasivo: el EDT (Timer de Swing y paintComponent).
+ * - lectura (qué buffer tiene el lector) no es atómico: si cambia el hilo que pinta, el nuevo tiene que
+ *   ver lo que dejó el anterior. Eso lo da GameCanvas.start(): se llama desde el EDT y Thread.start()
+ *   hace que el hilo Render vea todo lo que el EDT hizo antes. El EDT deja de leer en cuanto hay canvas.
+ */
+public class Instantaneas {
+
+    private static final int NUEVA = 4; // bit: la del medio todavía no la ha cogido el lector
+
+    private final Instantanea[] bufs = { new Instantanea(), new Instantanea(), new Instantanea() };
+
+    private int escritura = 0; // solo el GameLoop
+    private int lectura = 1;   // solo el paint
+    private final AtomicInteger medio = new AtomicInteger(2);
+
+    /** La que puede rellenar el GameLoop (hasta que llame a publicar). */
+    public Instantanea paraEscribir() {
+        return bufs[escritura];
+    }
+
+    /** Deja la que se acaba de escribir como la última, y se queda otra libre para el siguiente tick. */
+    public void publicar() {
+        int anterior = medio.getAndSet(escritura | NUEVA);
+        escritura = anterior & 3;
+    }
+
+    /** La última publicada (vale hasta la siguiente llamada desde el mismo hilo). */
+    public Instantanea paraLeer() {
+        if ((medio.get() & NUEVA) != 0) {
+            int anterior = medio.getAndSet(lectura);
+            lectura = anterior & 3;
+        }
+        return bufs[lectura];
+    }
+}
@@ -0,0 +1,55 @@
+package model;
+
+import comunications.channel.Histograma;
+
+/**
+ * model.Medidor (modelo):
+ * Tiempos (p50/p99) y ritmo (cuántos por segundo) de algo que pasa muchas veces: un tick, un frame,
+ * bolas que entran o salen...
+ * - Ventanas de VENTANA_NS: al cerrarse una, sus números quedan publicados (getters) y se empieza otra.
+ * - Sin memoria nueva al medir: los tiempos van a un Histograma de tamaño fijo (en microsegundos).
+ * - Un solo hilo escribe (medir/contar); leer se puede desde cualquiera.
+ *   Hay que medir o contar a menudo (aunque sea contar(0)): la ventana se cierra al hacerlo.
+ */
+public class Medidor {
+
+    private static final long VENTANA_NS = 1_000_000_000L;
+
+    private final Histograma tiempos = new Histograma();
+    private long eventos = 0;
+    private long inicioVentana = System.nanoTime();
+
+    // de la última ventana cerrada
+    private volatile long p50Us = 0, p99Us = 0, porSegundo = 0;
+
+    /** Una vez más, que ha tardado nanos. */
+    public void medir(long nanos) {
+        tiempos.add(nanos / 1000);
+        eventos++;
+        cerrarSiToca();
+    }
+
+    /** n más (sin tiempo). */
+    public void contar(long n) {
+        eventos += n;
+        cerrarSiToca();
+    }
+
+    public long getP50Us() { return p50Us; }
+    public long getP99Us() { return p99Us; }
+    public long getPorSegundo() { return porSegundo; }
+
+    private void cerrarSiToca() {
+        long ahora = System.nanoTime();
+        long duracion = ahora - inicioVentana;
+        if (duracion < VENTANA_NS) return;
+
+        porSegundo = eventos * 1_000_000_000L / duracion;
+        p50Us = tiempos.percentil(50);
+        p99Us = tiempos.percentil(99);
+
+        tiempos.reset();
+        eventos = 0;
+        inicioVentana = ahora;
+    }
+}
@@ -0,0 +1,54 @@
+package model;
+
+/**
+ * model.Rendimiento (modelo):
+ * Los números del peer que enseña el HUD, juntos en un sitio.
+ * - Los escribe el hilo del GameLoop al final de cada tick (Medidores y campos volatile: sin locks ni memoria nueva).
+ * - El estado de la red se pregunta a quien la lleve (Red), solo cuando el HUD refresca.
+ */
+public class Rendimiento {
+
+    /** Lo que el HUD necesita saber del enlace de salida. */
+    public interface Red {
+        boolean isCanalValido();
+        int getSaltoSalida();
+        /** p99 del RTT de la salida en microsegundos (0 si aún no hay medidas). */
+        long getRttP99Us();
+        boolean isRedDegradada();
+    }
+
+    private final int tickHz;
+
+    private final Medidor tick = new Medidor();        // duración de cada tick
+    private final Medidor entradas = new Medidor();    // bolas y sprites que llegan de otro peer
+    private final Medidor salidas = new Medidor();     // bolas y sprites que se mandan al siguiente
+    private final Medidor descartadas = new Medidor(); // lo que no cupo en el buzón de entrada
+
+    private volatile long paresProbados = 0;
+    private volatile int choques = 0;
+
+    private volatile Red red = null;
+
+    public Rendimiento(int tickHz) {
+        this.tickHz = tickHz;
+    }
+
+    public int getTickHz() { return tickHz; }
+
+    public Medidor getTick() { return tick; }
+    public Medidor getEntradas() { return entradas; }
+    public Medidor getSalidas() { return salidas; }
+    public Medidor getDescartadas() { return descartadas; }
+
+    /** Choques del último tick (ver Colisiones). */
+    public void setColisiones(long paresProbados, int choques) {
+        this.paresProbados = paresProbados;
+        this.choques = choques;
+    }
+
+    public long getParesProbados() { return paresProbados; }
+    public int getChoques() { return choques; }
+
+    public void setRed(Red red) { this.red = red; }
+    public Red getRed() { return red; }
+}
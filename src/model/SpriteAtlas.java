@@ -0,0 +1,112 @@
+package model;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * model.SpriteAtlas (modelo):
+ * Hoja de sprites ya procesada en un fichero binario (lo genera AtlasConverter, fuera del juego).
+ * - Al arrancar no se decodifica nada: el fichero se mapea en memoria (FileChannel.map)
+ *   y cada frame se copia a su BufferedImage la primera vez que se pide (hasta entonces no está en el heap).
+ *
+ * Formato (big-endian):
+ *   [int magic "BATL"][int versión][int frameW][int frameH][int frames][int cadenciaMs][int umbralBlanco (-1 = sin quitar blanco)]
+ *   y luego cada frame seguido: frameW * frameH pixeles ARGB (int), fila a fila.
+ */
+public final class SpriteAtlas {
+
+    private static final int MAGIC = 0x4241544C; // "BATL"
+    private static final int VERSION = 1;
+    private static final int CABECERA = 7 * 4;
+
+    private final MappedByteBuffer datos;
+    private final int frameW, frameH, frames, cadenceMs, umbralBlanco;
+
+    private SpriteAtlas(MappedByteBuffer datos) throws IOException {
+        this.datos = datos;
+
+        if (datos.capacity() < CABECERA || datos.getInt(0) != MAGIC) {
+            throw new IOException("No es un atlas de sprites");
+        }
+        if (datos.getInt(4) != VERSION) {
+            throw new IOException("Versión de atlas no soportada: " + datos.getInt(4));
+        }
+        frameW = datos.getInt(8);
+        frameH = datos.getInt(12);
+        frames = datos.getInt(16);
+        cadenceMs = datos.getInt(20);
+        umbralBlanco = datos.getInt(24);
+
+        long esperado = CABECERA + 4L * frameW * frameH * frames;
+        if (frameW <= 0 || frameH <= 0 || frames <= 0 || datos.capacity() != esperado) {
+            throw new IOException("Atlas corrupto: " + datos.capacity() + " bytes, esperados " + esperado);
+        }
+    }
+
+    /** Mapea el fichero (solo lectura). El mapeo sigue valiendo después de cerrar el canal. */
+    public static SpriteAtlas abrir(Path fichero) throws IOException {
+        try (FileChannel ch = FileChannel.open(fichero, StandardOpenOption.READ)) {
+            return new SpriteAtlas(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    /** Frame i copiado del mapeo a una imagen ARGB (sin decodificar: los pixeles ya están listos). */
+    public BufferedImage frame(int i) {
+        BufferedImage img = new BufferedImage(frameW, frameH, BufferedImage.TYPE_INT_ARGB);
+        int[] px = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+
+        int n = frameW * frameH;
+        IntBuffer origen = datos.duplicate().position(CABECERA + 4 * i * n).asIntBuffer();
+        origen.get(px, 0, n);
+        return img;
+    }
+
+    public int getFrameWidth() { return frameW; }
+    public int getFrameHeight() { return frameH; }
+    public int getTotalFrames() { return frames; }
+    public int getCadenceMs() { return cadenceMs; }
+    public int getUmbralBlanco() { return umbralBlanco; }
+
+    /**
+     * Escribe un atlas con los frames (todos frameW x frameH).
+     * @param umbralBlanco el usado al quitar el blanco, o -1 si no se quitó
+     */
+    public static void escribir(Path fichero, BufferedImage[] frames, int frameW, int frameH, int cadenceMs,
+                                int umbralBlanco) throws IOException {
+        int n = frameW * frameH;
+        int[] fila = new int[n];
+
+        try (FileChannel ch = FileChannel.open(fichero, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            ByteBuffer cab = ByteBuffer.allocate(CABECERA);
+            cab.putInt(MAGIC).putInt(VERSION).putInt(frameW).putInt(frameH)
+                    .putInt(frames.length).putInt(cadenceMs).putInt(umbralBlanco).flip();
+            while (cab.hasRemaining()) ch.write(cab);
+
+            ByteBuffer buf = ByteBuffer.allocate(4 * n);
+            for (BufferedImage f : frames) {
+                f.getRGB(0, 0, frameW, frameH, fila, 0, frameW); // ARGB, de una vez por frame
+                buf.clear();
+                buf.asIntBuffer().put(fila);
+                while (buf.hasRemaining()) ch.write(buf);
+            }
+        }
+    }
+
+    /** Donde se busca el atlas de un recurso: -Dbolas.atlasDir (por defecto "atlas") + nombre sin extensión + ".atlas". */
+    public static Path rutaPara(String recurso) {
+        String nombre = recurso.substring(recurso.lastIndexOf('/') + 1);
+        int punto = nombre.lastIndexOf('.');
+        if (punto > 0) nombre = nombre.substring(0, punto);
+
+        return Path.of(System.getProperty("bolas.atlasDir", "atlas"), nombre + ".atlas");
+    }
+}
@@ -0,0 +1,157 @@
+package model;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * model.SpriteSheetCache (modelo):
+ * Hojas de sprites ya procesadas (leídas, con el blanco transparente y cortadas en frames),
+ * para no volver a leer y decodificar la imagen cada vez que se crea o llega un sprite.
+ * - Clave: recurso + parámetros (tamaño de frame, nº de frames, cadencia, blanco transparente).
+ * - Se cargan del classpath (p.ej. "/Resources/fuegosheet.jpeg"), no de una ruta absoluta.
+ * - Si hay un atlas ya procesado para ese recurso (AtlasConverter, ver SpriteAtlas.rutaPara) y sus
+ *   parámetros coinciden, se usa ese: sin decodificar nada y con los frames fuera del heap hasta que se piden.
+ * - Acotada en memoria (-Dbolas.cacheSpritesMB, 64 por defecto): si se pasa, fuera la menos usada (LRU).
+ *   La que se acaba de cargar nunca se echa, aunque sola ya pase del límite.
+ */
+public class SpriteSheetCache {
+
+    private static final SpriteSheetCache GLOBAL =
+            new SpriteSheetCache(Long.getLong("bolas.cacheSpritesMB", 64L) * 1024 * 1024);
+
+    private final long maxBytes;
+    private long bytes = 0;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entrada> hojas = new LinkedHashMap<>(16, 0.75f, true); // orden de uso
+
+    private static final class Entrada {
+        final SpriteSheetFactory hoja;
+        final long bytes;
+
+        Entrada(SpriteSheetFactory hoja, long bytes) {
+            this.hoja = hoja;
+            this.bytes = bytes;
+        }
+    }
+
+    public SpriteSheetCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /** La caché de toda la aplicación. */
+    public static SpriteSheetCache global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Hoja lista para usar (de la caché, o se carga y se procesa la primera vez).
+     * @param recurso ruta en el classpath (empieza por "/")
+     * @param blancoTransparente pasar por SpriteSheetFactory.makeWhiteTransparent
+     */
+    public SpriteSheetFactory obtener(String recurso, int frameW, int frameH, int totalFrames, int cadenceMs,
+                                      boolean blancoTransparente) {
+        String clave = recurso + "|" + frameW + "x" + frameH + "|" + totalFrames + "|" + cadenceMs + "|" + blancoTransparente;
+
+        lock.lock();
+        try {
+            Entrada e = hojas.get(clave);
+            if (e != null) return e.hoja;
+
+            SpriteAtlas atlas = abrirAtlas(recurso, frameW, frameH, totalFrames, cadenceMs, blancoTransparente);
+            if (atlas != null) {
+                SpriteSheetFactory hoja = new SpriteSheetFactory(atlas);
+                e = new Entrada(hoja, 4L * frameW * frameH * atlas.getTotalFrames()); // lo máximo que llega a ocupar
+            } else {
+                BufferedImage sheet = cargar(recurso);
+                if (blancoTransparente) sheet = SpriteSheetFactory.makeWhiteTransparent(sheet);
+
+                SpriteSheetFactory hoja = new SpriteSheetFactory(sheet, frameW, frameH, totalFrames, cadenceMs);
+                e = new Entrada(hoja, 4L * sheet.getWidth() * sheet.getHeight()); // los frames comparten el raster
+            }
+            hojas.put(clave, e);
+            bytes += e.bytes;
+
+            System.out.println("[SpriteSheetCache] Cargada " + clave + (atlas != null ? " desde atlas" : "")
+                    + " (" + (e.bytes / 1024) + " KB)");
+            expulsar(clave);
+            return e.hoja;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getBytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // echa las menos usadas hasta caber (menos la recién cargada)
+    private void expulsar(String nueva) {
+        Iterator<Map.Entry<String, Entrada>> it = hojas.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Entrada> m = it.next();
+            if (m.getKey().equals(nueva)) continue;
+
+            bytes -= m.getValue().bytes;
+            it.remove();
+            System.out.println("[SpriteSheetCache] Fuera " + m.getKey());
+        }
+    }
+
+    /**
+     * Atlas del recurso si existe y se hizo con los mismos parámetros; si no, null (se decodifica la imagen).
+     */
+    private static SpriteAtlas abrirAtlas(String recurso, int frameW, int frameH, int totalFrames, int cadenceMs,
+                                          boolean blancoTransparente) {
+        Path ruta = SpriteAtlas.rutaPara(recurso);
+        if (!Files.isRegularFile(ruta)) return null;
+
+        try {
+            SpriteAtlas atlas = SpriteAtlas.abrir(ruta);
+            int umbral = blancoTransparente ? SpriteSheetFactory.UMBRAL_BLANCO : -1;
+
+            if (atlas.getFrameWidth() != frameW || atlas.getFrameHeight() != frameH
+                    || atlas.getTotalFrames() > totalFrames || atlas.getCadenceMs() != cadenceMs
+                    || atlas.getUmbralBlanco() != umbral) {
+                System.out.println("[SpriteSheetCache] Atlas " + ruta + " con otros parámetros, se ignora");
+                return null;
+            }
+            return atlas;
+        } catch (IOException ex) {
+            System.out.println("[SpriteSheetCache] Atlas " + ruta + " no válido (" + ex.getMessage() + "), se ignora");
+            return null;
+        }
+    }
+
+    /**
+     * Lee la imagen del classpath; si no está (p.ej. ejecutando sin copiar recursos),
+     * prueba con src/ + recurso. Si falla, RuntimeException (para no seguir sin sprite).
+     */
+    static BufferedImage cargar(String recurso) {
+        try (InputStream in = SpriteSheetCache.class.getResourceAsStream(recurso)) {
+            BufferedImage img = (in != null) ? ImageIO.read(in) : null;
+            if (img == null) {
+                File f = new File("src" + recurso);
+                if (f.isFile()) img = ImageIO.read(f);
+            }
+            if (img == null) throw new IllegalStateException("no encontrado");
+            return img;
+        } catch (Exception e) {
+            throw new RuntimeException("Error cargando sprite: " + recurso, e);
+        }
+    }
+}
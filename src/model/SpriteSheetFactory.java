@@ -1,6 +1,10 @@
 package model;
 
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.stream.IntStream;
 
 public class SpriteSheetFactory {
 
@@ -11,6 +15,7 @@ public class SpriteSheetFactory {
 
     private BufferedImage spriteSheet;
     private BufferedImage[] frames;
+    private final SpriteAtlas atlas; // si viene de un atlas, los frames se sacan cuando se piden
     private int currentFrame = 0;
     private long lastFrameTime = 0;
     private boolean active = false;
@@ -22,11 +27,23 @@ public class SpriteSheetFactory {
         this.frameHeight = frameHeight;
         this.totalFrames = totalFrames;
         this.cadenceMs = cadenceMs;
+        this.atlas = null;
 
         loadSpriteSheet(sheet);
         splitSpriteSheet();
     }
 
+    // Desde un atlas ya procesado: no se decodifica ni se corta nada (ver getFrame)
+    public SpriteSheetFactory(SpriteAtlas atlas) {
+        this.frameWidth = atlas.getFrameWidth();
+        this.frameHeight = atlas.getFrameHeight();
+        this.totalFrames = atlas.getTotalFrames();
+        this.cadenceMs = atlas.getCadenceMs();
+        this.atlas = atlas;
+
+        this.frames = new BufferedImage[totalFrames];
+    }
+
     private void loadSpriteSheet(BufferedImage sheet) {
         this.spriteSheet = sheet;
     }
@@ -68,7 +85,17 @@ public class SpriteSheetFactory {
 
     public BufferedImage getCurrentFrame() {
         if (frames == null || frames.length == 0 || currentFrame >= frames.length) return null;
-        return frames[currentFrame];
+        return getFrame(currentFrame);
+    }
+
+    /** Frame i (con atlas, la primera vez se copia del fichero mapeado). */
+    public BufferedImage getFrame(int i) {
+        if (atlas == null) return frames[i]; // cortados en el constructor, ya no cambian
+
+        synchronized (this) {
+            if (frames[i] == null) frames[i] = atlas.frame(i);
+            return frames[i];
+        }
     }
 
     public void start() {
@@ -91,6 +118,10 @@ public class SpriteSheetFactory {
         return active;
     }
 
+    // Frames compartidos (SpriteStore: todos los sprites usan los mismos con getFrame, cada uno con su fase)
+    public int getTotalFrames() { return frames.length; }
+    public int getCadenceMs() { return cadenceMs; }
+
     public int getFrameWidth() { return frameWidth; }
     public int getFrameHeight() { return frameHeight; }
     public int getCurrentFrameIndex() { return currentFrame; }
@@ -100,31 +131,57 @@ public class SpriteSheetFactory {
 
 //nuevo metodo para hacerlo transparente
 
+    // Un pixel es "blanco" si R, G y B pasan de este umbral (-Dbolas.umbralBlanco, 240 por defecto)
+    public static final int UMBRAL_BLANCO = Integer.getInteger("bolas.umbralBlanco", 240);
+
+    // A partir de estos pixeles las filas se reparten entre varios hilos
+    private static final int PARALELO_DESDE_PIXELES = Integer.getInteger("bolas.paraleloDesdePixeles", 256 * 1024);
 
     public static BufferedImage makeWhiteTransparent(BufferedImage img) {
+        return makeWhiteTransparent(img, UMBRAL_BLANCO);
+    }
+
+    /**
+     * makeWhiteTransparent(img, umbral):
+     * - copia la imagen a ARGB de una vez (drawImage, no pixel a pixel)
+     * - recorre directamente el int[] del raster (DataBufferInt), sin getRGB/setRGB
+     * - si la hoja es grande, las filas se procesan en paralelo
+     */
+    public static BufferedImage makeWhiteTransparent(BufferedImage img, int umbral) {
         int w = img.getWidth();
         int h = img.getHeight();
 
         BufferedImage transparent =
                 new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
 
-        for (int y = 0; y < h; y++) {
-            for (int x = 0; x < w; x++) {
-                int rgba = img.getRGB(x, y);
+        Graphics2D g = transparent.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(img, 0, 0, null);
+        g.dispose();
 
-                int r = (rgba >> 16) & 0xff;
-                int g = (rgba >> 8) & 0xff;
-                int b = rgba & 0xff;
+        int[] px = ((DataBufferInt) transparent.getRaster().getDataBuffer()).getData();
 
-                // Si es casi blanco → transparente
-                if (r > 240 && g > 240 && b > 240) {
-                    transparent.setRGB(x, y, 0x00000000);
-                } else {
-                    transparent.setRGB(x, y, rgba);
-                }
-            }
+        if ((long) w * h >= PARALELO_DESDE_PIXELES) {
+            IntStream.range(0, h).parallel().forEach(y -> quitarBlanco(px, y * w, y * w + w, umbral));
+        } else {
+            quitarBlanco(px, 0, w * h, umbral);
         }
         return transparent;
     }
 
+    // Si es casi blanco → transparente (pixeles [desde, hasta))
+    private static void quitarBlanco(int[] px, int desde, int hasta, int umbral) {
+        for (int i = desde; i < hasta; i++) {
+            int argb = px[i];
+
+            int r = (argb >> 16) & 0xff;
+            int g = (argb >> 8) & 0xff;
+            int b = argb & 0xff;
+
+            if (r > umbral && g > umbral && b > umbral) {
+                px[i] = 0x00000000;
+            }
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package model;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * model.SpriteStore (modelo):
+ * Todos los sprites animados del peer, en columnas (como BallStore).
+ * - Cada sprite solo guarda posición, velocidad y su fase de animación (en qué frame empezó).
+ * - Las imágenes NO van aquí: todos comparten los frames de un mismo SpriteSheetFactory,
+ *   y el frame de cada uno sale de un reloj común (ver copiarEn), no de un currentTimeMillis por sprite.
+ * - Las velocidades van en píxeles por frame a 60 fps (la unidad de siempre, también por red).
+ * - remove(i) trae el último al hueco; update() apunta los que salen por la derecha (getSalida).
+ *
+ * No es thread-safe: solo la usa el hilo del GameLoop.
+ */
+public class SpriteStore {
+
+    private static final float REF_HZ = 60f;
+
+    private final int ancho, alto; // tamaño del frame (para rebotar y saber cuándo ha salido)
+
+    private float[] x, y, prevX, prevY, vx, vy;
+    private int[] fase;
+    private int size = 0;
+
+    private int[] salidas;
+    private int nSalidas = 0;
+
+    public SpriteStore(int anchoFrame, int altoFrame) {
+        this.ancho = anchoFrame;
+        this.alto = altoFrame;
+
+        int c = 16;
+        x = new float[c];
+        y = new float[c];
+        prevX = new float[c];
+        prevY = new float[c];
+        vx = new float[c];
+        vy = new float[c];
+        fase = new int[c];
+        salidas = new int[c];
+    }
+
+    public void add(float sx, float sy, float svx, float svy, int faseInicial) {
+        if (size == x.length) crecer();
+
+        int i = size++;
+        x[i] = prevX[i] = sx;
+        y[i] = prevY[i] = sy;
+        vx[i] = svx;
+        vy[i] = svy;
+        fase[i] = faseInicial;
+    }
+
+    /** Quita el sprite i poniendo el último en su lugar. */
+    public void remove(int i) {
+        int last = --size;
+        if (i == last) return;
+
+        x[i] = x[last];
+        y[i] = y[last];
+        prevX[i] = prevX[last];
+        prevY[i] = prevY[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        fase[i] = fase[last];
+    }
+
+    /**
+     * Mueve todos los sprites (rebotan a la izquierda, arriba y abajo) y apunta los que han
+     * salido por la derecha (no se quitan aquí).
+     * @return cuántos han salido
+     */
+    public int update(float dtSeconds, Rectangle2D.Float bounds) {
+        float pasos = dtSeconds * REF_HZ;
+        float bottom = bounds.height - alto;
+        int n = 0;
+
+        for (int i = 0; i < size; i++) {
+            prevX[i] = x[i];
+            prevY[i] = y[i];
+
+            float sx = x[i] + vx[i] * pasos;
+            float sy = y[i] + vy[i] * pasos;
+
+            // Rebote izquierda (solo si iba hacia la izquierda: los que entran vienen de x < 0)
+            if (sx <= 0 && vx[i] < 0) {
+                sx = 0;
+                vx[i] = -vx[i];
+            }
+
+            // Rebote arriba/abajo
+            if (sy <= 0) {
+                sy = 0;
+                vy[i] = -vy[i];
+            } else if (sy >= bottom) {
+                sy = bottom;
+                vy[i] = -vy[i];
+            }
+
+            x[i] = sx;
+            y[i] = sy;
+
+            if (sx >= bounds.width) salidas[n++] = i;
+        }
+
+        nSalidas = n;
+        return n;
+    }
+
+    /** Índice del k-ésimo sprite que salió en el último update (de menor a mayor). */
+    public int getSalida(int k) { return salidas[k]; }
+
+    /**
+     * Copia los sprites en la instantánea con el frame que les toca en el reloj común.
+     * @param relojMs tiempo de simulación en ms (el mismo para todos los sprites)
+     */
+    public void copiarEn(Instantanea s, SpriteSheetFactory hoja, long relojMs) {
+        s.asegurarSprites(size);
+        s.hoja = hoja;
+
+        long paso = relojMs / hoja.getCadenceMs();
+        int total = hoja.getTotalFrames();
+
+        for (int i = 0; i < size; i++) {
+            s.spriteX[i] = x[i];
+            s.spriteY[i] = y[i];
+            s.spritePrevX[i] = prevX[i];
+            s.spritePrevY[i] = prevY[i];
+            s.spriteFrame[i] = (int) ((paso + fase[i]) % total);
+        }
+        s.nSprites = size;
+    }
+
+    public int size() { return size; }
+
+    public float getY(int i) { return y[i]; }
+    public float getVx(int i) { return vx[i]; }
+    public float getVy(int i) { return vy[i]; }
+
+    private void crecer() {
+        int c = x.length * 2;
+        x = Arrays.copyOf(x, c);
+        y = Arrays.copyOf(y, c);
+        prevX = Arrays.copyOf(prevX, c);
+        prevY = Arrays.copyOf(prevY, c);
+        vx = Arrays.copyOf(vx, c);
+        vy = Arrays.copyOf(vy, c);
+        fase = Arrays.copyOf(fase, c);
+        salidas = new int[c];
+    }
+}
@@ -0,0 +1,59 @@
+package model.dto;
+
+import java.util.Arrays;
+
+/**
+ * LoteBolas:
+ * Bolas que pasan de un peer a otro en un mismo tick, guardadas en un float[]
+ * (4 floats por bola) en vez de un BolaDTO por bola.
+ * - Es mutable y se reutiliza: clear() y se vuelve a llenar, sin crear objetos.
+ * - Solo crece (copia del array) si llegan más bolas que nunca; luego ya no asigna.
+ * - No es thread-safe: el que lo recibe en una llamada lo usa dentro de esa llamada
+ *   (si lo quiere para luego, copia con addTodo).
+ */
+public class LoteBolas {
+
+    private static final int CAMPOS = 4; // posicionY, radio, velocidadX, velocidadY
+
+    private float[] datos;
+    private int n = 0;
+
+    public LoteBolas() {
+        this(64);
+    }
+
+    public LoteBolas(int capacidad) {
+        this.datos = new float[Math.max(1, capacidad) * CAMPOS];
+    }
+
+    public void add(float posicionY, float radio, float velocidadX, float velocidadY) {
+        asegurar(n + 1);
+        int i = n * CAMPOS;
+        datos[i] = posicionY;
+        datos[i + 1] = radio;
+        datos[i + 2] = velocidadX;
+        datos[i + 3] = velocidadY;
+        n++;
+    }
+
+    /** Copia al final todas las bolas de otro lote. */
+    public void addTodo(LoteBolas otro) {
+        asegurar(n + otro.n);
+        System.arraycopy(otro.datos, 0, datos, n * CAMPOS, otro.n * CAMPOS);
+        n += otro.n;
+    }
+
+    public int size() { return n; }
+    public boolean isEmpty() { return n == 0; }
+    public void clear() { n = 0; }
+
+    public float getPosicionY(int i) { return datos[i * CAMPOS]; }
+    public float getRadio(int i) { return datos[i * CAMPOS + 1]; }
+    public float getVelocidadX(int i) { return datos[i * CAMPOS + 2]; }
+    public float getVelocidadY(int i) { return datos[i * CAMPOS + 3]; }
+
+    private void asegurar(int bolas) {
+        if (bolas * CAMPOS <= datos.length) return;
+        datos = Arrays.copyOf(datos, Math.max(bolas * CAMPOS, datos.length * 2));
+    }
+}
@@ -0,0 +1,26 @@
+package view;
+
+/**
+ * Camara:
+ * Qué trozo del mundo se ve en el panel (esquina de arriba a la izquierda, en píxeles del mundo).
+ * - La mueve el EDT (arrastrar con el ratón, flechas); la lee el hilo que pinta: por eso volatile.
+ * - Nunca se sale del mundo: 0 <= x <= mundoW - vistaW (igual en y).
+ * - Posición entera: los sellos de las bolas siguen cayendo en píxel entero.
+ */
+class Camara {
+
+    private volatile int x = 0, y = 0;
+
+    int getX() { return x; }
+    int getY() { return y; }
+
+    /** Mueve la cámara (dx, dy) sin salirse de un mundo de mundoW x mundoH visto en vistaW x vistaH. */
+    void mover(int dx, int dy, int mundoW, int mundoH, int vistaW, int vistaH) {
+        x = clamp(x + dx, Math.max(0, mundoW - vistaW));
+        y = clamp(y + dy, Math.max(0, mundoH - vistaH));
+    }
+
+    private static int clamp(int v, int max) {
+        return Math.max(0, Math.min(max, v));
+    }
+}
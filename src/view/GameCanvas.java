@@ -0,0 +1,135 @@
+package view;
+
+import model.Instantanea;
+import model.Instantaneas;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * GameCanvas:
+ * Pintado activo: un Canvas con BufferStrategy que pinta desde su propio hilo ("Render"),
+ * sin pasar por repaint() ni por el EDT (nada de esperar a que Swing junte repaints).
+ * - Cada frame: última instantánea -> (cámara, lo que se ve) -> buffer de atrás -> show().
+ * - Si el contenido del buffer se pierde o se restaura, se repite el frame (bucle de la documentación de BufferStrategy).
+ * - Ritmo: -Dbolas.fps (60 por defecto), independiente de la simulación.
+ * - Solo se repinta lo que ha cambiado (ZonaSucia) si el buffer de atrás conserva el frame anterior
+ *   (BufferStrategy por copia) o el de hace dos (flip que deja el anterior); si no, siempre entero.
+ */
+class GameCanvas extends Canvas implements Runnable {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int FPS = Math.max(1, Integer.getInteger("bolas.fps", 60));
+
+    private final Renderer renderer;
+    private final Instantaneas instantaneas;
+    private final Camara camara;
+    private final ZonaSucia zona = new ZonaSucia();
+
+    private volatile boolean corriendo = false;
+    private Thread hilo;
+
+    private final Hud hud;
+
+    GameCanvas(Renderer renderer, Instantaneas instantaneas, Camara camara, Hud hud) {
+        this.renderer = renderer;
+        this.instantaneas = instantaneas;
+        this.camara = camara;
+        this.hud = hud;
+
+        setBackground(Renderer.FONDO);
+        setIgnoreRepaint(true); // lo pinta el hilo Render, no el sistema
+        setFocusable(false);    // el teclado (flechas de la cámara) lo recoge GameView
+    }
+
+    synchronized void start() {
+        if (corriendo) return;
+        corriendo = true;
+
+        hilo = new Thread(this, "Render");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    synchronized void stop() {
+        corriendo = false;
+        if (hilo != null) hilo.interrupt();
+        hilo = null;
+    }
+
+    @Override
+    public void run() {
+        long frameNanos = 1_000_000_000L / FPS;
+        long siguiente = System.nanoTime();
+
+        while (corriendo && !Thread.currentThread().isInterrupted()) {
+            try {
+                pintarFrame();
+            } catch (IllegalStateException e) {
+                // el canvas aún no se ve (o ya no): se intenta en el siguiente frame
+            }
+
+            siguiente += frameNanos;
+            long espera = siguiente - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+            } else {
+                siguiente = System.nanoTime(); // vamos tarde: no intentar recuperar frames
+            }
+        }
+    }
+
+    private void pintarFrame() {
+        int w = getWidth();
+        int h = getHeight();
+        if (!isDisplayable() || w <= 0 || h <= 0) return;
+
+        BufferStrategy bs = getBufferStrategy();
+        if (bs == null) {
+            createBufferStrategy(2);
+            zona.setHistoria(historia(getBufferStrategy()));
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        Instantanea s = instantaneas.paraLeer();
+        float a = s.getAlpha(inicio);
+        renderer.preparar(s, a, w, h, camara.getX(), camara.getY(), zona);
+
+        long pintado;
+        boolean perdido;
+        do {
+            boolean restaurado;
+            do {
+                Graphics2D g = (Graphics2D) bs.getDrawGraphics();
+                try {
+                    renderer.pintar(g, s, w, h, getGraphicsConfiguration(), zona);
+                } finally {
+                    g.dispose();
+                }
+                restaurado = bs.contentsRestored();
+                if (restaurado) zona.invalidar(); // el buffer vuelve vacío: otra vez, entero
+            } while (restaurado);
+            pintado = System.nanoTime() - inicio; // sin show()/sync(): eso puede esperar al refresco de pantalla
+
+            bs.show();
+            perdido = bs.contentsLost();
+            if (perdido) zona.invalidar();
+        } while (perdido);
+
+        Toolkit.getDefaultToolkit().sync();
+        hud.getPintado().medir(pintado);
+    }
+
+    // cuántos frames atrás queda en el buffer de atrás tras show() (ver ZonaSucia.setHistoria)
+    private static int historia(BufferStrategy bs) {
+        if (bs == null) return 0;
+
+        BufferCapabilities caps = bs.getCapabilities();
+        if (!caps.isPageFlipping() || caps.getFlipContents() == BufferCapabilities.FlipContents.COPIED) return 1;
+        if (caps.getFlipContents() == BufferCapabilities.FlipContents.PRIOR) return 2;
+        return 0;
+    }
+}
@@ -1,78 +1,201 @@
 package view;
 
-import model.Ball;
+import model.Instantanea;
+import model.Instantaneas;
+import model.Rendimiento;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.geom.Ellipse2D;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.awt.geom.Rectangle2D;
-import java.util.Collections;
-import java.util.List;
 
+/**
+ * GameView:
+ * Panel del juego. Pinta la última instantánea de la simulación de una de dos formas:
+ * - activo (por defecto): un GameCanvas dentro del panel con BufferStrategy y su propio hilo de pintado.
+ * - pasivo (-Dbolas.render=pasivo): cada 16ms un Timer de Swing pide repaint solo de lo que ha cambiado
+ *   (ZonaSucia); el paint pinta justo la instantánea y el alpha con los que se calculó esa zona.
+ * Lo que se dibuja es lo mismo en los dos (Renderer).
+ *
+ * Mundo y cámara:
+ * - El mundo puede ser más grande que el panel (-Dbolas.mundoAncho / -Dbolas.mundoAlto, en píxeles;
+ *   0 o sin poner = el tamaño del panel, como antes). La simulación usa el mundo (getWorldBounds).
+ * - Se ve el trozo donde está la cámara: se mueve arrastrando con el ratón o con las flechas.
+ *
+ * HUD de rendimiento encima (Hud): se enseña y se quita con F3 (o el botón HUD de MainFrame).
+ */
 public class GameView extends JPanel {
 
-    private List<Ball> balls = Collections.emptyList();
+    public static final boolean ACTIVO =
+            !"pasivo".equalsIgnoreCase(System.getProperty("bolas.render", "activo"));
 
-    private java.awt.image.BufferedImage spriteFrame = null;
-    private int spriteX = 0;
-    private int spriteY = 0;
+    private static final int MUNDO_ANCHO = Integer.getInteger("bolas.mundoAncho", 0);
+    private static final int MUNDO_ALTO = Integer.getInteger("bolas.mundoAlto", 0);
+    private static final int PASO_CAMARA = 40; // píxeles por pulsación de flecha
+
+    private final Hud hud = new Hud();
+    private final Renderer renderer = new Renderer(hud);
+    private final Camara camara = new Camara();
+
+    // La simulación va en otro hilo (GameLoop): se pinta su última instantánea (sin locks)
+    // y se interpola con el alpha de esa misma instantánea (Instantanea.getAlpha)
+    private Instantaneas instantaneas = new Instantaneas();
+
+    private GameCanvas canvas = null;  // modo activo
+    private Timer repaintTimer = null; // modo pasivo
+
+    // modo pasivo (solo en el EDT): el frame que se va a pintar y lo que ha cambiado respecto al anterior
+    private final ZonaSucia zona = new ZonaSucia();
+    private Instantanea frameActual = null;
 
     public GameView(int width, int height) {
+        super(new BorderLayout());
         setPreferredSize(new Dimension(width, height));
-        setBackground(new Color(255, 236, 245)); // rosa pastel suave
+        setBackground(Renderer.FONDO);
         setDoubleBuffered(true);
+
+        arrastrarCamara(this);
+        flechasCamara();
+
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "hud");
+        getActionMap().put("hud", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                alternarHud();
+            }
+        });
     }
 
-    public void setBalls(List<Ball> balls) {
-        this.balls = (balls != null) ? balls : Collections.emptyList();
+    public void setSimulacion(Instantaneas instantaneas) {
+        this.instantaneas = instantaneas;
     }
 
-    public void setSprite(java.awt.image.BufferedImage frame, int x, int y) {
-        this.spriteFrame = frame;
-        this.spriteX = x;
-        this.spriteY = y;
+    /** Números de la simulación y la red que enseña el HUD. */
+    public void setRendimiento(Rendimiento rendimiento) {
+        hud.setRendimiento(rendimiento);
     }
 
-    public Rectangle2D.Float getWorldBounds() {
-        return new Rectangle2D.Float(0, 0, getWidth(), getHeight());
+    /** Enseña o quita el HUD (se puede llamar desde cualquier hilo). */
+    public void alternarHud() {
+        hud.alternar();
     }
 
-    @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
+    /** Empieza a pintar (se puede llamar desde cualquier hilo). */
+    public void iniciarPintado() {
+        SwingUtilities.invokeLater(() -> {
+            if (canvas != null || repaintTimer != null) return;
+
+            if (ACTIVO) {
+                canvas = new GameCanvas(renderer, instantaneas, camara, hud);
+                arrastrarCamara(canvas); // el Canvas es pesado: recibe él los eventos del ratón
+                add(canvas, BorderLayout.CENTER);
+                revalidate();
+                canvas.start();
+            } else {
+                // Repintar cada 16ms (aprox 60fps), independiente de la simulación
+                repaintTimer = new Timer(16, e -> pedirRepintado());
+                repaintTimer.start();
+            }
+        });
+    }
 
-        Graphics2D g2 = (Graphics2D) g.create();
-        try {
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    public void pararPintado() {
+        SwingUtilities.invokeLater(() -> {
+            if (canvas != null) canvas.stop();
+            if (repaintTimer != null) repaintTimer.stop();
+        });
+    }
+
+    // Timer del modo pasivo: fija el frame y pide repintar solo sus zonas sucias
+    private void pedirRepintado() {
+        frameActual = instantaneas.paraLeer();
+        renderer.preparar(frameActual, frameActual.getAlpha(System.nanoTime()), getWidth(), getHeight(),
+                camara.getX(), camara.getY(), zona);
+
+        if (zona.isCompleto()) {
+            repaint();
+            return;
+        }
+        for (int k = 0; k < zona.getNumRects(); k++) {
+            repaint(zona.getX(k), zona.getY(k), zona.getAncho(k), zona.getAlto(k));
+        }
+    }
+
+    /** El mundo donde se simula (en píxeles): el configurado, o el panel si no hay. */
+    public Rectangle2D.Float getWorldBounds() {
+        return new Rectangle2D.Float(0, 0, mundoAncho(), mundoAlto());
+    }
 
-            // borde suave
-            g2.setColor(new Color(0, 0, 0, 25));
-            g2.drawRect(0, 0, getWidth() - 1, getHeight() - 1);
+    private int mundoAncho() {
+        return (MUNDO_ANCHO > 0) ? MUNDO_ANCHO : getWidth();
+    }
 
-            Color bolaColor = new Color(231, 111, 170);
-            g2.setColor(bolaColor);
+    private int mundoAlto() {
+        return (MUNDO_ALTO > 0) ? MUNDO_ALTO : getHeight();
+    }
 
-            for (Ball b : balls) {
-                float r = b.getR();
-                float x = b.getX() - r;
-                float y = b.getY() - r;
+    private void moverCamara(int dx, int dy) {
+        camara.mover(dx, dy, mundoAncho(), mundoAlto(), getWidth(), getHeight());
+    }
 
-                Shape circle = new Ellipse2D.Float(x, y, r * 2f, r * 2f);
-                g2.fill(circle);
+    // arrastrar con el ratón mueve el mundo con él (la cámara va al revés)
+    private void arrastrarCamara(Component c) {
+        MouseAdapter arrastre = new MouseAdapter() {
+            private int ultimoX, ultimoY;
 
-                g2.setColor(new Color(0, 0, 0, 40));
-                g2.draw(circle);
-                g2.setColor(bolaColor);
+            @Override
+            public void mousePressed(MouseEvent e) {
+                ultimoX = e.getX();
+                ultimoY = e.getY();
             }
 
-            if (spriteFrame != null) {
-                g2.drawImage(spriteFrame, spriteX, spriteY, null);
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                moverCamara(ultimoX - e.getX(), ultimoY - e.getY());
+                ultimoX = e.getX();
+                ultimoY = e.getY();
             }
+        };
+        c.addMouseListener(arrastre);
+        c.addMouseMotionListener(arrastre);
+    }
 
+    // flechas: funcionan tenga quien tenga el foco dentro de la ventana (p.ej. el botón LANZA)
+    private void flechasCamara() {
+        teclaCamara(KeyEvent.VK_LEFT, "camaraIzquierda", -PASO_CAMARA, 0);
+        teclaCamara(KeyEvent.VK_RIGHT, "camaraDerecha", PASO_CAMARA, 0);
+        teclaCamara(KeyEvent.VK_UP, "camaraArriba", 0, -PASO_CAMARA);
+        teclaCamara(KeyEvent.VK_DOWN, "camaraAbajo", 0, PASO_CAMARA);
+    }
 
+    private void teclaCamara(int tecla, String nombre, int dx, int dy) {
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(tecla, 0), nombre);
+        getActionMap().put(nombre, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                moverCamara(dx, dy);
+            }
+        });
+    }
 
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (canvas != null) return; // modo activo: pinta el canvas
+
+        if (frameActual == null) pedirRepintado(); // aún no ha pasado el Timer
+
+        long inicio = System.nanoTime();
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            // el frame que preparó el Timer; Swing ya recorta a lo que se pidió repintar
+            renderer.pintar(g2, frameActual, getWidth(), getHeight(), getGraphicsConfiguration(), null);
         } finally {
             g2.dispose();
         }
+        hud.getPintado().medir(System.nanoTime() - inicio);
     }
-}
\ No newline at end of file
+}
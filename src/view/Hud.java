@@ -0,0 +1,164 @@
+package view;
+
+import model.Instantanea;
+import model.Medidor;
+import model.Rendimiento;
+
+import java.awt.*;
+
+/**
+ * Hud:
+ * Recuadro de rendimiento encima del juego (F3 o el botón HUD; -Dbolas.hud=true para empezar visible).
+ * - FPS y tiempo de pintado (p50/p99), ticks por segundo y tiempo del tick, bolas y sprites,
+ *   traspasos por segundo (entran/salen/descartados) y el estado del canal de salida.
+ * - Última línea: de un vistazo si el peer va bien, va justo de CPU, tiene la red lenta o está desconectado.
+ * - Los números se recogen sin memoria nueva (Medidor, Rendimiento); el texto se rehace solo
+ *   cada REFRESCO_NS y entre medias se pinta el mismo.
+ * - Lo pinta el Renderer al final de cada frame (así sale también sobre el Canvas del modo activo).
+ */
+class Hud {
+
+    private static final long REFRESCO_NS = 250_000_000L;
+    private static final int X = 8, Y = 8;
+    private static final int ANCHO = 380;
+    private static final int ALTO_LINEA = 15;
+    private static final int LINEAS = 7;
+    private static final int ALTO = LINEAS * ALTO_LINEA + 10;
+
+    private static final Font FUENTE = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color CAJA = new Color(0, 0, 0, 160);
+    private static final Color TEXTO = new Color(240, 240, 240);
+    private static final Color BIEN = new Color(120, 220, 120);
+    private static final Color AVISO = new Color(255, 190, 80);
+    private static final Color MAL = new Color(255, 100, 100);
+
+    private volatile boolean visible = Boolean.getBoolean("bolas.hud");
+    private volatile Rendimiento rendimiento = null;
+
+    private final Medidor pintado = new Medidor(); // lo escribe el hilo que pinta
+
+    // texto ya hecho (solo el hilo que pinta)
+    private final StringBuilder sb = new StringBuilder(64);
+    private final String[] lineas = new String[LINEAS];
+    private Color colorEstado = TEXTO;
+    private long ultimoRefresco = 0;
+
+    boolean isVisible() { return visible; }
+
+    void alternar() { visible = !visible; }
+
+    void setRendimiento(Rendimiento r) { rendimiento = r; }
+
+    /** Tiempo de pintar cada frame (preparar + pintar, sin esperar a la pantalla). */
+    Medidor getPintado() { return pintado; }
+
+    int getX() { return X; }
+    int getY() { return Y; }
+    int getAncho() { return ANCHO; }
+    int getAlto() { return ALTO; }
+
+    void pintar(Graphics2D g2, Instantanea s, int bolasVisibles, boolean mapa) {
+        long ahora = System.nanoTime();
+        if (lineas[0] == null || ahora - ultimoRefresco >= REFRESCO_NS) {
+            refrescar(s, bolasVisibles, mapa);
+            ultimoRefresco = ahora;
+        }
+
+        g2.setColor(CAJA);
+        g2.fillRect(X, Y, ANCHO, ALTO);
+
+        g2.setFont(FUENTE);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        for (int k = 0; k < LINEAS; k++) {
+            g2.setColor(k == LINEAS - 1 ? colorEstado : TEXTO);
+            g2.drawString(lineas[k], X + 6, Y + 4 + (k + 1) * ALTO_LINEA - 3);
+        }
+    }
+
+    // rehace las líneas con los números de ahora
+    private void refrescar(Instantanea s, int bolasVisibles, boolean mapa) {
+        Rendimiento r = rendimiento;
+        Rendimiento.Red red = (r != null) ? r.getRed() : null;
+        long presupuestoFrameUs = 1_000_000L / GameCanvas.FPS;
+
+        sb.setLength(0);
+        sb.append("FPS ").append(pintado.getPorSegundo()).append("  pintado p50 ");
+        ms(pintado.getP50Us());
+        sb.append(" p99 ");
+        ms(pintado.getP99Us());
+        lineas[0] = sb.toString();
+
+        boolean cpu = pintado.getP99Us() > presupuestoFrameUs;
+        boolean lenta = false;
+        boolean conectado = true;
+
+        if (r == null) {
+            lineas[1] = "Tick  (sin simulación)";
+            lineas[3] = "Traspasos/s  -";
+            lineas[4] = "Choques  -";
+        } else {
+            Medidor tick = r.getTick();
+            long presupuestoTickUs = 1_000_000L / r.getTickHz();
+
+            sb.setLength(0);
+            sb.append("Tick ").append(tick.getPorSegundo()).append('/').append(r.getTickHz()).append(" Hz  p50 ");
+            ms(tick.getP50Us());
+            sb.append(" p99 ");
+            ms(tick.getP99Us());
+            lineas[1] = sb.toString();
+
+            sb.setLength(0);
+            sb.append("Traspasos/s  entran ").append(r.getEntradas().getPorSegundo())
+                    .append("  salen ").append(r.getSalidas().getPorSegundo())
+                    .append("  desc. ").append(r.getDescartadas().getPorSegundo());
+            lineas[3] = sb.toString();
+
+            sb.setLength(0);
+            sb.append("Choques ").append(r.getChoques()).append("  pares probados ").append(r.getParesProbados());
+            lineas[4] = sb.toString();
+
+            cpu |= tick.getP99Us() > presupuestoTickUs || tick.getPorSegundo() * 100 < r.getTickHz() * 95L;
+            lenta = r.getDescartadas().getPorSegundo() > 0;
+        }
+
+        sb.setLength(0);
+        sb.append("Bolas ").append(s.size()).append(" (vistas ").append(bolasVisibles).append(mapa ? ", mapa" : "")
+                .append(")  Sprites ").append(s.getNumSprites());
+        lineas[2] = sb.toString();
+
+        sb.setLength(0);
+        if (red == null) {
+            sb.append("Canal  -");
+        } else if (red.isCanalValido()) {
+            sb.append("Canal OK  salto ").append(red.getSaltoSalida()).append("  RTT p99 ");
+            ms(red.getRttP99Us());
+            lenta |= red.isRedDegradada();
+        } else {
+            sb.append("Canal CAÍDO");
+            conectado = false;
+        }
+        lineas[5] = sb.toString();
+
+        if (!conectado) {
+            lineas[6] = "Estado: DESCONECTADO";
+            colorEstado = MAL;
+        } else if (cpu) {
+            lineas[6] = "Estado: CPU (no llega al tick o al frame)";
+            colorEstado = AVISO;
+        } else if (lenta) {
+            lineas[6] = "Estado: RED (lenta o descartando)";
+            colorEstado = AVISO;
+        } else {
+            lineas[6] = "Estado: OK";
+            colorEstado = BIEN;
+        }
+    }
+
+    // microsegundos como milisegundos con dos decimales ("1.25 ms")
+    private void ms(long us) {
+        long centesimas = (us % 1000) / 10;
+        sb.append(us / 1000).append('.');
+        if (centesimas < 10) sb.append('0');
+        sb.append(centesimas).append(" ms");
+    }
+}
@@ -6,6 +6,7 @@ import java.awt.*;
 public class MainFrame extends JFrame {
 
     private final JButton btnSpawn = new JButton("LANZA");
+    private final JButton btnHud = new JButton("HUD"); // rendimiento encima del juego (también F3)
     private final GameView gamePanel;
 
     public MainFrame(String title, int w, int h) {
@@ -24,9 +25,17 @@ public class MainFrame extends JFrame {
         btnSpawn.setFont(btnSpawn.getFont().deriveFont(Font.BOLD, 14f));
         btnSpawn.setBorder(BorderFactory.createEmptyBorder(6, 18, 6, 18));
 
+        btnHud.setFocusPainted(false);
+        btnHud.setFocusable(false); // que las flechas y F3 sigan yendo al juego
+        btnHud.setBackground(new Color(255, 230, 160));
+        btnHud.setFont(btnHud.getFont().deriveFont(Font.BOLD, 12f));
+        btnHud.setBorder(BorderFactory.createEmptyBorder(6, 12, 6, 12));
+
         top.add(btnSpawn);
+        top.add(btnHud);
 
         gamePanel = new GameView(w, h);
+        btnHud.addActionListener(e -> gamePanel.alternarHud());
 
         add(top, BorderLayout.NORTH);
         add(gamePanel, BorderLayout.CENTER);
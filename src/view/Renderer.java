@@ -0,0 +1,315 @@
+package view;
+
+import model.Instantanea;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.VolatileImage;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Renderer:
+ * El dibujo de una Instantanea, compartido por el modo activo (GameCanvas + BufferStrategy)
+ * y el pasivo (GameView.paintComponent). Cada frame son dos pasos:
+ * - preparar: con la cámara, se quedan solo las bolas y sprites que se ven (y su posición en pantalla);
+ *   lo que queda fuera ya no cuesta nada más. Si hay demasiadas bolas visibles
+ *   (-Dbolas.densidadMapa por cada 100x100 px, 20 por defecto; 0 = nunca) se pinta un mapa de densidad
+ *   en vez de cada bola.
+ * - pintar: lo preparado, y encima el HUD si está visible.
+ * - Las bolas se pintan con drawImage de su sello ya rasterizado (ver SellosBola), en píxel entero.
+ * - Con una ZonaSucia solo se repinta lo que ha cambiado desde el frame anterior (el resto sigue en el buffer).
+ * - Los frames de sprite se pintan desde VolatileImage compatibles con la pantalla (ver superficie):
+ *   así el blit va por el camino acelerado, y si la superficie se pierde se vuelve a rellenar.
+ *
+ * Solo lo usa el hilo que pinta.
+ */
+class Renderer {
+
+    static final Color FONDO = new Color(255, 236, 245); // rosa pastel suave
+    private static final Color BORDE = new Color(0, 0, 0, 25);
+
+    static final int DENSIDAD_MAPA = Math.max(0, Integer.getInteger("bolas.densidadMapa", 20));
+    private static final int CELDA_MAPA = 16; // píxeles de pantalla por celda del mapa
+    // bolas por celda con las que el mapa ya sale del color más oscuro (8 veces el umbral)
+    private static final int SATURA_MAPA = Math.max(1, DENSIDAD_MAPA * CELDA_MAPA * CELDA_MAPA * 8 / 10_000);
+    private static final int[] RAMPA = rampa(); // color por nivel de densidad (0 = fondo)
+
+    private final SellosBola sellos = new SellosBola();
+    private final Hud hud;
+
+    // frame original -> copia en la tarjeta (débil: si la hoja sale de la caché, su copia también se va)
+    private final Map<BufferedImage, VolatileImage> superficies = new WeakHashMap<>();
+
+    // ==========================
+    // Frame preparado (preparar)
+    // ==========================
+    private int nBolas = 0;                       // bolas visibles
+    private int[] bolas = new int[0];             // su índice en la instantánea
+    private int[] bolaX = new int[0], bolaY = new int[0]; // esquina del sello, en pantalla
+    private int nSprites = 0;
+    private int[] sprites = new int[0];
+    private int[] spriteX = new int[0], spriteY = new int[0];
+    private boolean mapa = false;
+    private boolean conHud = false;
+
+    private int camXAnterior = Integer.MIN_VALUE, camYAnterior = Integer.MIN_VALUE;
+
+    // mapa de densidad: una celda = un pixel de la imagen, que luego se escala a la pantalla
+    private BufferedImage imagenMapa = null;
+    private int[] pixelesMapa = new int[0];
+    private int[] cuentas = new int[0];
+
+    Renderer(Hud hud) {
+        this.hud = hud;
+    }
+
+    /**
+     * Prepara el frame que se ve con la cámara en (camX, camY) en un panel de w x h.
+     * Si hay zona, le marca lo que ocupan las bolas y sprites visibles (y la invalida si la cámara
+     * se ha movido o si toca mapa de densidad: entonces se pinta todo).
+     */
+    void preparar(Instantanea s, float a, int w, int h, int camX, int camY, ZonaSucia zona) {
+        asegurar(s.size(), s.getNumSprites());
+
+        nBolas = 0;
+        for (int i = 0; i < s.size(); i++) {
+            float r = s.getR(i);
+            float d = SellosBola.desplazamiento(r);
+            int lado = SellosBola.lado(r);
+            int bx = Math.round(s.getX(i, a) - d) - camX;
+            int by = Math.round(s.getY(i, a) - d) - camY;
+            if (bx >= w || by >= h || bx + lado <= 0 || by + lado <= 0) continue;
+
+            bolas[nBolas] = i;
+            bolaX[nBolas] = bx;
+            bolaY[nBolas] = by;
+            nBolas++;
+        }
+
+        nSprites = 0;
+        int sw = s.getSpriteAncho();
+        int sh = s.getSpriteAlto();
+        for (int i = 0; i < s.getNumSprites(); i++) {
+            int sx = Math.round(s.getSpriteX(i, a)) - camX;
+            int sy = Math.round(s.getSpriteY(i, a)) - camY;
+            if (sx >= w || sy >= h || sx + sw <= 0 || sy + sh <= 0) continue;
+
+            sprites[nSprites] = i;
+            spriteX[nSprites] = sx;
+            spriteY[nSprites] = sy;
+            nSprites++;
+        }
+
+        mapa = DENSIDAD_MAPA > 0 && (long) nBolas * 10_000 > (long) DENSIDAD_MAPA * w * h;
+
+        boolean hudAntes = conHud;
+        conHud = hud.isVisible();
+
+        if (zona != null) {
+            zona.empezar(w, h);
+            if (mapa || camX != camXAnterior || camY != camYAnterior || conHud != hudAntes) {
+                zona.invalidar();
+            }
+            if (conHud) zona.marcar(hud.getX(), hud.getY(), hud.getAncho(), hud.getAlto()); // cambia cada frame
+            if (!mapa) {
+                for (int k = 0; k < nBolas; k++) {
+                    int lado = SellosBola.lado(s.getR(bolas[k]));
+                    zona.marcar(bolaX[k], bolaY[k], lado, lado);
+                }
+                for (int k = 0; k < nSprites; k++) {
+                    zona.marcar(spriteX[k], spriteY[k], sw, sh);
+                }
+            }
+            zona.terminar();
+        }
+        camXAnterior = camX;
+        camYAnterior = camY;
+    }
+
+    /** Bolas que se van a pintar en el frame preparado (o que van al mapa de densidad). */
+    int getBolasVisibles() { return nBolas; }
+
+    boolean isMapa() { return mapa; }
+
+    /**
+     * Pinta el frame preparado (mismo s).
+     * - Sin zona o con zona completa: entero. Si g2 ya viene recortado (repaint de una zona en modo pasivo),
+     *   lo que queda fuera del recorte ni se intenta pintar.
+     * - Si no, solo los rectángulos de la zona sobre lo que quedó del frame anterior. Todas las bolas y
+     *   sprites de este frame caen dentro de la zona, así que se pintan enteros sin recortar.
+     */
+    void pintar(Graphics2D g2, Instantanea s, int w, int h, GraphicsConfiguration gc, ZonaSucia zona) {
+        if (mapa) {
+            pintarMapa(g2, s, w, h);
+            pintarSprites(g2, s, gc, g2.getClipBounds());
+        } else if (zona == null || zona.isCompleto()) {
+            fondo(g2, 0, 0, w, h, w, h);
+            Rectangle recorte = g2.getClipBounds();
+            pintarBolas(g2, s, gc, recorte);
+            pintarSprites(g2, s, gc, recorte);
+        } else {
+            for (int k = 0; k < zona.getNumRects(); k++) {
+                fondo(g2, zona.getX(k), zona.getY(k), zona.getAncho(k), zona.getAlto(k), w, h);
+            }
+            pintarBolas(g2, s, gc, null);
+            pintarSprites(g2, s, gc, null);
+        }
+
+        if (conHud) hud.pintar(g2, s, nBolas, mapa);
+    }
+
+    // fondo y borde suave, solo en el rectángulo (x, y, rw, rh) de un panel w x h
+    private static void fondo(Graphics2D g2, int x, int y, int rw, int rh, int w, int h) {
+        g2.setColor(FONDO);
+        g2.fillRect(x, y, rw, rh);
+
+        g2.setColor(BORDE);
+        if (x == 0 && y == 0 && rw >= w && rh >= h) {
+            g2.drawRect(0, 0, w - 1, h - 1);
+        } else if (x == 0 || y == 0 || x + rw >= w || y + rh >= h) {
+            // solo el trozo de borde que cae en el rectángulo (el resto ya está pintado)
+            Shape clip = g2.getClip();
+            g2.clipRect(x, y, rw, rh);
+            g2.drawRect(0, 0, w - 1, h - 1);
+            g2.setClip(clip);
+        }
+    }
+
+    // con recorte != null se saltan las que no lo tocan
+    private void pintarBolas(Graphics2D g2, Instantanea s, GraphicsConfiguration gc, Rectangle recorte) {
+        for (int k = 0; k < nBolas; k++) {
+            int i = bolas[k];
+            float r = s.getR(i);
+            int lado = SellosBola.lado(r);
+            if (recorte != null && !toca(recorte, bolaX[k], bolaY[k], lado, lado)) continue;
+
+            g2.drawImage(sellos.sello(r, s.getColor(i), gc), bolaX[k], bolaY[k], null);
+        }
+    }
+
+    private void pintarSprites(Graphics2D g2, Instantanea s, GraphicsConfiguration gc, Rectangle recorte) {
+        int sw = s.getSpriteAncho();
+        int sh = s.getSpriteAlto();
+
+        for (int k = 0; k < nSprites; k++) {
+            if (recorte != null && !toca(recorte, spriteX[k], spriteY[k], sw, sh)) continue;
+
+            BufferedImage frame = s.getSpriteImagen(sprites[k]);
+            if (frame == null) continue;
+
+            Image img = (gc != null) ? superficie(frame, gc) : frame;
+            g2.drawImage(img, spriteX[k], spriteY[k], null);
+        }
+    }
+
+    /**
+     * Mapa de densidad: cuántas bolas visibles caen en cada celda de CELDA_MAPA x CELDA_MAPA,
+     * a color (RAMPA), en una imagen de una celda por pixel que se escala al panel.
+     */
+    private void pintarMapa(Graphics2D g2, Instantanea s, int w, int h) {
+        int cols = (w + CELDA_MAPA - 1) / CELDA_MAPA;
+        int filas = (h + CELDA_MAPA - 1) / CELDA_MAPA;
+
+        if (imagenMapa == null || imagenMapa.getWidth() != cols || imagenMapa.getHeight() != filas) {
+            imagenMapa = new BufferedImage(cols, filas, BufferedImage.TYPE_INT_RGB);
+            pixelesMapa = ((DataBufferInt) imagenMapa.getRaster().getDataBuffer()).getData();
+            cuentas = new int[cols * filas];
+        }
+        Arrays.fill(cuentas, 0);
+
+        for (int k = 0; k < nBolas; k++) {
+            int centro = SellosBola.lado(s.getR(bolas[k])) / 2;
+            int c = Math.max(0, Math.min(cols - 1, (bolaX[k] + centro) / CELDA_MAPA));
+            int f = Math.max(0, Math.min(filas - 1, (bolaY[k] + centro) / CELDA_MAPA));
+            cuentas[f * cols + c]++;
+        }
+
+        int maxNivel = RAMPA.length - 1;
+        for (int t = 0; t < cuentas.length; t++) {
+            pixelesMapa[t] = RAMPA[Math.min(maxNivel, cuentas[t] * maxNivel / SATURA_MAPA)];
+        }
+
+        // escalado sin suavizar (celdas cuadradas): el bilineal en software cuesta más que pintar las bolas
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g2.drawImage(imagenMapa, 0, 0, cols * CELDA_MAPA, filas * CELDA_MAPA, null);
+
+        g2.setColor(BORDE);
+        g2.drawRect(0, 0, w - 1, h - 1);
+    }
+
+    // del fondo al rosa de las bolas y luego a un morado oscuro
+    private static int[] rampa() {
+        int[] desde = {255, 236, 245};
+        int[] medio = {231, 111, 170};
+        int[] hasta = {110, 30, 95};
+
+        int[] r = new int[64];
+        int mitad = r.length / 2;
+        for (int i = 0; i < r.length; i++) {
+            int[] a = (i < mitad) ? desde : medio;
+            int[] b = (i < mitad) ? medio : hasta;
+            float t = (i < mitad) ? i / (float) mitad : (i - mitad) / (float) (r.length - 1 - mitad);
+
+            int rr = Math.round(a[0] + (b[0] - a[0]) * t);
+            int gg = Math.round(a[1] + (b[1] - a[1]) * t);
+            int bb = Math.round(a[2] + (b[2] - a[2]) * t);
+            r[i] = (rr << 16) | (gg << 8) | bb;
+        }
+        return r;
+    }
+
+    private void asegurar(int nBolasMax, int nSpritesMax) {
+        if (bolas.length < nBolasMax) {
+            int c = Math.max(nBolasMax, bolas.length * 2);
+            bolas = new int[c];
+            bolaX = new int[c];
+            bolaY = new int[c];
+        }
+        if (sprites.length < nSpritesMax) {
+            int c = Math.max(nSpritesMax, sprites.length * 2);
+            sprites = new int[c];
+            spriteX = new int[c];
+            spriteY = new int[c];
+        }
+    }
+
+    private static boolean toca(Rectangle c, int x, int y, int w, int h) {
+        return x < c.x + c.width && x + w > c.x && y < c.y + c.height && y + h > c.y;
+    }
+
+    /**
+     * Copia del frame en una VolatileImage compatible con gc.
+     * validate() cada vez: si la superficie se perdió (cambio de modo, otra app a pantalla completa...)
+     * se vuelve a copiar; si ya no es compatible, se crea otra.
+     */
+    private Image superficie(BufferedImage frame, GraphicsConfiguration gc) {
+        VolatileImage vi = superficies.get(frame);
+
+        int estado = (vi == null) ? VolatileImage.IMAGE_INCOMPATIBLE : vi.validate(gc);
+        if (estado == VolatileImage.IMAGE_INCOMPATIBLE) {
+            if (vi != null) vi.flush();
+            vi = gc.createCompatibleVolatileImage(frame.getWidth(), frame.getHeight(), Transparency.TRANSLUCENT);
+            vi.validate(gc);
+            superficies.put(frame, vi);
+            copiar(frame, vi);
+        } else if (estado == VolatileImage.IMAGE_RESTORED) {
+            copiar(frame, vi);
+        }
+
+        // si justo se ha perdido, este frame sale desde la imagen normal; el siguiente ya se repara
+        return vi.contentsLost() ? frame : vi;
+    }
+
+    private static void copiar(BufferedImage frame, VolatileImage vi) {
+        Graphics2D g = vi.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src); // copia también la transparencia
+            g.drawImage(frame, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+    }
+}
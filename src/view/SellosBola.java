@@ -0,0 +1,122 @@
+package view;
+
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * SellosBola:
+ * Una imagen ya pintada (con antialias y borde) por cada radio y color de bola.
+ * Pintar una bola es entonces un drawImage en vez de rellenar y trazar una elipse:
+ * el rasterizado de la forma se hace una vez por sello, no una vez por bola y frame.
+ * - Clave: radio redondeado a 1/4 de píxel + color RGB.
+ * - Las imágenes son compatibles con la pantalla (gc.createCompatibleImage), así Java2D
+ *   las puede tener en la tarjeta; si cambia la GraphicsConfiguration se vuelven a hacer.
+ * - Tabla propia con claves long (direccionamiento abierto): buscar un sello no crea objetos.
+ *
+ * Solo lo usa el hilo que pinta.
+ */
+class SellosBola {
+
+    private static final Color BOLA_BORDE = new Color(0, 0, 0, 40);
+    private static final int MARGEN = 1; // para el antialias y el trazo del borde
+
+    private long[] claves = new long[64];
+    private Image[] sellos = new Image[64];
+    private int usados = 0;
+
+    private GraphicsConfiguration gc;
+    private final Ellipse2D.Float circle = new Ellipse2D.Float();
+
+    /** Cuánto hay que restar al centro de la bola para saber dónde va la esquina del sello. */
+    static float desplazamiento(float r) {
+        return r + MARGEN;
+    }
+
+    /**
+     * Sello de la bola de radio r y color rgb (se crea la primera vez).
+     * @param gc configuración de la pantalla donde se pinta (null = imagen ARGB normal)
+     */
+    Image sello(float r, int rgb, GraphicsConfiguration gc) {
+        if (gc != this.gc) {
+            vaciar();
+            this.gc = gc;
+        }
+
+        long clave = ((long) Math.round(r * 4f) << 32) | (rgb & 0xFFFFFFFFL);
+        int mascara = claves.length - 1;
+        int i = mezclar(clave) & mascara;
+
+        while (sellos[i] != null) {
+            if (claves[i] == clave) return sellos[i];
+            i = (i + 1) & mascara;
+        }
+
+        Image img = crear(r, rgb);
+        claves[i] = clave;
+        sellos[i] = img;
+        if (++usados * 2 > claves.length) crecer();
+        return img;
+    }
+
+    /** Lado (en píxeles) del sello de una bola de radio r. */
+    static int lado(float r) {
+        return (int) Math.ceil(r * 2f) + 2 * MARGEN;
+    }
+
+    int size() { return usados; }
+
+    private Image crear(float r, int rgb) {
+        int lado = lado(r);
+
+        BufferedImage img = (gc != null)
+                ? gc.createCompatibleImage(lado, lado, Transparency.TRANSLUCENT)
+                : new BufferedImage(lado, lado, BufferedImage.TYPE_INT_ARGB);
+
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            circle.setFrame(MARGEN, MARGEN, r * 2f, r * 2f);
+
+            g.setColor(new Color(rgb));
+            g.fill(circle);
+
+            g.setColor(BOLA_BORDE);
+            g.draw(circle);
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+
+    private void vaciar() {
+        for (Image img : sellos) {
+            if (img != null) img.flush();
+        }
+        Arrays.fill(sellos, null);
+        usados = 0;
+    }
+
+    private void crecer() {
+        long[] viejasClaves = claves;
+        Image[] viejos = sellos;
+
+        claves = new long[viejasClaves.length * 2];
+        sellos = new Image[viejos.length * 2];
+        int mascara = claves.length - 1;
+
+        for (int k = 0; k < viejos.length; k++) {
+            if (viejos[k] == null) continue;
+            int i = mezclar(viejasClaves[k]) & mascara;
+            while (sellos[i] != null) i = (i + 1) & mascara;
+            claves[i] = viejasClaves[k];
+            sellos[i] = viejos[k];
+        }
+    }
+
+    private static int mezclar(long clave) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,172 @@
+package view;
+
+/**
+ * ZonaSucia:
+ * Qué parte de la pantalla hay que volver a pintar para pasar del frame anterior a este.
+ * - La pantalla se parte en teselas de TESELA x TESELA. Cada frame (empezar, marcar..., terminar) se marcan
+ *   las teselas que tocan las bolas y sprites visibles donde se van a pintar (ver Renderer.preparar).
+ * - Sucio = lo de este frame + lo de los anteriores que siguen en el buffer (historia, ver setHistoria):
+ *   así se borra donde estaban y se pinta donde están.
+ * - Las teselas sucias se juntan en rectángulos (tramos por fila, y se alargan hacia abajo si el de
+ *   la fila de abajo es igual).
+ * - Si lo sucio pasa de -Dbolas.umbralSucio (% del área, 50 por defecto), o salen más de MAX_RECTS
+ *   rectángulos, se pinta todo: con tantas cosas en pantalla no compensa.
+ * - Al empezar, tras un cambio de tamaño, si se movió la cámara, si el frame no se marcó (mapa de densidad)
+ *   o si el buffer se perdió (invalidar), se pinta entero este frame y tantos más como buffers haya en la historia.
+ *
+ * Solo lo usa el hilo que pinta.
+ */
+class ZonaSucia {
+
+    static final int TESELA = 32;
+    private static final int UMBRAL_PCT = Math.max(0, Math.min(100, Integer.getInteger("bolas.umbralSucio", 50)));
+    private static final int MAX_RECTS = 64;
+
+    // bit 0: este frame, bit 1: el anterior, bit 2: el de antes
+    private byte[] marcas = new byte[0];
+    private int cols, filas, ancho, alto;
+
+    private int historia = 1;
+    private int completosPendientes = 1; // frames que aún hay que pintar enteros (uno por buffer)
+
+    // resultado del último terminar()
+    private boolean completo = true;
+    private int nRects = 0;
+    private final int[] rx = new int[MAX_RECTS], ry = new int[MAX_RECTS];
+    private final int[] rw = new int[MAX_RECTS], rh = new int[MAX_RECTS];
+
+    /**
+     * Cuántos frames atrás tiene el buffer donde se pinta:
+     * 1 si conserva el último frame (Swing, BufferStrategy por copia), 2 si es el de hace dos
+     * (page flipping que deja el frame anterior), 0 si no se sabe (siempre completo).
+     */
+    void setHistoria(int frames) {
+        historia = frames;
+        invalidar();
+    }
+
+    /**
+     * Este frame se pinta entero, y los siguientes hasta que todos los buffers lo estén
+     * (buffer perdido, restaurado, cámara movida...).
+     */
+    void invalidar() {
+        completosPendientes = Math.max(1, historia) + 1;
+        completo = true;
+        nRects = 0;
+    }
+
+    /** Empieza un frame de w x h: lo marcado pasa a ser "el anterior". */
+    void empezar(int w, int h) {
+        if (w != ancho || h != alto) redimensionar(w, h);
+
+        for (int t = 0; t < marcas.length; t++) {
+            marcas[t] = (byte) ((marcas[t] << 1) & 0x6);
+        }
+    }
+
+    /** Marca (bit 0) las teselas que toca el rectángulo (en píxeles de pantalla), recortado a la pantalla. */
+    void marcar(int x, int y, int w, int h) {
+        if (x + w <= 0 || y + h <= 0) return; // fuera por la izquierda/arriba
+
+        int c0 = Math.max(0, x / TESELA);
+        int f0 = Math.max(0, y / TESELA);
+        int c1 = Math.min(cols - 1, (x + w - 1) / TESELA);
+        int f1 = Math.min(filas - 1, (y + h - 1) / TESELA);
+
+        for (int f = f0; f <= f1; f++) {
+            int base = f * cols;
+            for (int c = c0; c <= c1; c++) marcas[base + c] |= 1;
+        }
+    }
+
+    /**
+     * Cierra el frame: calcula lo que hay que pintar.
+     * @return true si hay que pintarlo todo (entonces no hay rectángulos)
+     */
+    boolean terminar() {
+        nRects = 0;
+        completo = completosPendientes > 0 || historia <= 0 || !juntar();
+        if (completosPendientes > 0) completosPendientes--;
+        return completo;
+    }
+
+    boolean isCompleto() { return completo; }
+
+    int getNumRects() { return nRects; }
+    int getX(int k) { return rx[k]; }
+    int getY(int k) { return ry[k]; }
+    int getAncho(int k) { return rw[k]; }
+    int getAlto(int k) { return rh[k]; }
+
+    private void redimensionar(int w, int h) {
+        ancho = w;
+        alto = h;
+        cols = Math.max(0, (w + TESELA - 1) / TESELA);
+        filas = Math.max(0, (h + TESELA - 1) / TESELA);
+        marcas = new byte[cols * filas];
+        completosPendientes = Math.max(1, historia); // cuenta también este frame
+    }
+
+    /**
+     * Junta las teselas sucias en rectángulos (en píxeles).
+     * @return false si no compensa (demasiada área o demasiados rectángulos)
+     */
+    private boolean juntar() {
+        int sucio = (historia >= 2) ? 0x7 : 0x3;
+
+        int teselas = 0;
+        for (byte m : marcas) {
+            if ((m & sucio) != 0) teselas++;
+        }
+        if ((long) teselas * TESELA * TESELA * 100 > (long) UMBRAL_PCT * ancho * alto) return false;
+
+        int filaAnterior = 0; // primer rect que acababa en la fila anterior
+        for (int f = 0; f < filas; f++) {
+            int base = f * cols;
+            int filaActual = nRects;
+
+            int c = 0;
+            while (c < cols) {
+                if ((marcas[base + c] & sucio) == 0) {
+                    c++;
+                    continue;
+                }
+                int desde = c;
+                while (c < cols && (marcas[base + c] & sucio) != 0) c++;
+
+                int x = desde * TESELA;
+                int w = Math.min(ancho, c * TESELA) - x;
+                int y = f * TESELA;
+                int h = Math.min(alto, y + TESELA) - y;
+
+                // mismo tramo en la fila de arriba: se alarga ese rectángulo
+                int k = filaAnterior;
+                while (k < filaActual && (rx[k] != x || rw[k] != w || ry[k] + rh[k] != y)) k++;
+                if (k < filaActual) {
+                    rh[k] += h;
+                    // pasa a ser de esta fila: se mueve al final para que la siguiente lo encuentre
+                    intercambiar(k, filaActual - 1);
+                    filaActual--;
+                    continue;
+                }
+
+                if (nRects == MAX_RECTS) return false;
+                rx[nRects] = x;
+                ry[nRects] = y;
+                rw[nRects] = w;
+                rh[nRects] = h;
+                nRects++;
+            }
+            filaAnterior = filaActual;
+        }
+        return true;
+    }
+
+    private void intercambiar(int i, int j) {
+        int t;
+        t = rx[i]; rx[i] = rx[j]; rx[j] = t;
+        t = ry[i]; ry[i] = ry[j]; ry[j] = t;
+        t = rw[i]; rw[i] = rw[j]; rw[j] = t;
+        t = rh[i]; rh[i] = rh[j]; rh[j] = t;
+    }
+}